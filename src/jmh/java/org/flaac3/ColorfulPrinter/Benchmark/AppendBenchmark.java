@@ -0,0 +1,84 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.Text;
+import org.flaac3.ColorfulPrinter.Printer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 追加路径的开销：原来基于 stream 的 objArrToString 和现在的快速路径，以及整个 Printer.append <br/>
+ * 看分配情况可以加上 GC profiler：gradle jmh -Pjmh.includes=Append（再给 JMH 传 -prof gc）
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AppendBenchmark {
+    private static final int APPENDS = 1024;
+
+    private final String word = "segment";
+    private final int number = 42;
+    private Printer printer;
+
+    @Setup(Level.Iteration)
+    public void setup () {
+        printer = new Printer();
+    }
+
+    /**
+     * 原来的实现，只用来对比
+     * */
+    private static String legacyObjArrToString (Object... objects) {
+        return Arrays.stream(objects).map(Object::toString).collect(Collectors.joining());
+    }
+
+    @Benchmark
+    public String legacyOneString () {
+        return legacyObjArrToString(word);
+    }
+    @Benchmark
+    public String oneString () {
+        return Text.objArrToString(word);
+    }
+
+    @Benchmark
+    public String legacyStringAndInt () {
+        return legacyObjArrToString(word, number);
+    }
+    @Benchmark
+    public String stringAndInt () {
+        return Text.objArrToString(word, number);
+    }
+
+    @Benchmark
+    public String legacyFourArgs () {
+        return legacyObjArrToString(word, ' ', number, Boolean.TRUE);
+    }
+    @Benchmark
+    public String fourArgs () {
+        return Text.objArrToString(word, ' ', number, Boolean.TRUE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(APPENDS)
+    public void append (Blackhole blackhole) {
+        printer.clear();
+        for (int i = 0; i < APPENDS; i++) printer.append(Color.GREEN, null, word);
+        blackhole.consume(printer);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(APPENDS)
+    public void appendString (Blackhole blackhole) {
+        printer.clear();
+        for (int i = 0; i < APPENDS; i++) printer.appendString(Color.GREEN, null, word);
+        blackhole.consume(printer);
+    }
+}
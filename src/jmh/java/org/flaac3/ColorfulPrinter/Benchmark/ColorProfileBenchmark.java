@@ -0,0 +1,47 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Printer;
+import org.flaac3.ColorfulPrinter.Render.ColorProfile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 真彩色在三种终端上的渲染：原样输出、换成 256 色、换成 16 色，换色全部是查表，三者的差距应该很小 <br/>
+ * 例如：gradle jmh -Pjmh.includes=ColorProfileBenchmark -Pjmh.profilers=gc
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ColorProfileBenchmark {
+    private static final int SEGMENTS = 10_000;
+
+    @Param({"TRUECOLOR", "ANSI_256", "ANSI_16"})
+    public ColorProfile profile;
+
+    /**
+     * 颜色的数量：16 种时都能命中 TextColors 中缓存的转义，4096 种时大部分要重新生成
+     * */
+    @Param({"16", "4096"})
+    public int distinctColors;
+
+    private Printer printer;
+
+    @Setup
+    public void setup () {
+        printer = new Printer().setColorProfile(profile);
+        for (int i = 0; i < SEGMENTS; i++) {
+            int n = (int) (i % distinctColors * 2654435761L); //把编号打散成不同的 RGB
+            printer.append(Color.rgb(n & 0xFFFFFF), i % 3 == 0 ? Color.rgb(n >>> 8 & 0xFFFFFF) : null, "segment ");
+        }
+    }
+
+    @Benchmark
+    public String toColorString () {
+        return printer.toColorString();
+    }
+}
@@ -0,0 +1,60 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Printer;
+import org.flaac3.ColorfulPrinter.Render.ParallelRenderer;
+import org.flaac3.ColorfulPrinter.Render.RenderMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并行渲染随线程数变化的曲线：parallelism 为 0 表示不使用 ParallelRenderer，直接顺序渲染 <br/>
+ * 例如：gradle jmh -Pjmh.includes=ParallelRender
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelRenderBenchmark {
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"0", "1", "2", "4", "8", "16"})
+    public int parallelism;
+
+    @Param({"PLAIN", "MINIMAL"})
+    public RenderMode renderMode;
+
+    private Printer printer;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup () {
+        var random = new Random(42);
+        printer = new Printer().setRenderMode(renderMode);
+        for (int i = 0; i < size; i++) {
+            var textColor = random.nextInt(4) == 0 ? null : new Color(random.nextInt(16));
+            var backGroundColor = random.nextInt(3) == 0 ? new Color(random.nextInt(8)) : null;
+            printer.append(textColor, backGroundColor, "segment ", i, ' ');
+        }
+        if (parallelism > 0) {
+            pool = new ForkJoinPool(parallelism);
+            printer.setParallelRenderer(new ParallelRenderer(pool, ParallelRenderer.DEFAULT_THRESHOLD));
+        }
+    }
+
+    @TearDown
+    public void tearDown () {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public String toColorString () {
+        return printer.toColorString();
+    }
+}
@@ -0,0 +1,80 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.TextColors;
+import org.flaac3.ColorfulPrinter.Printer;
+import org.flaac3.ColorfulPrinter.Store.ArrayTextStore;
+import org.flaac3.ColorfulPrinter.Store.ColumnarTextStore;
+import org.flaac3.ColorfulPrinter.Template;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整个 Printer 的追加和渲染，覆盖从 10 到 100 万个 Text，以及直接指定颜色、全部通过模板取色、通过带缓存的模板取色三种用法，
+ * 和默认容器、列式容器两种存放方式 <br/>
+ * 例如：gradle jmh -Pjmh.includes=PrinterBenchmark -Pjmh.profilers=gc
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrinterBenchmark {
+    /**
+     * 每个 Text 的颜色都来自模板，文本颜色 16 种轮换，每 3 个有一个背景色
+     * */
+    private static final Template CYCLE = index -> new TextColors(
+            new Color(index & 15), index % 3 == 0 ? new Color(index & 7) : null
+    );
+    private static final Color[] COLORS = {Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW};
+
+    public enum Style { PLAIN, TEMPLATE, MEMOIZED_TEMPLATE }
+    public enum Store { ARRAY, COLUMNAR }
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int segments;
+
+    @Param({"PLAIN", "TEMPLATE", "MEMOIZED_TEMPLATE"})
+    public Style style;
+
+    @Param({"ARRAY", "COLUMNAR"})
+    public Store store;
+
+    private final String word = "segment ";
+    private Printer printer; //事先准备好的 Printer，用于渲染
+
+    @Setup
+    public void setup () {
+        printer = build();
+    }
+
+    private Printer build () {
+        var out = new Printer(
+                store == Store.COLUMNAR ? new ColumnarTextStore() : new ArrayTextStore(),
+                style == Style.PLAIN ? Template.DEFAULT_MESSAGE : style == Style.TEMPLATE ? CYCLE : Template.memoize(CYCLE)
+        );
+        if (style != Style.PLAIN) {
+            for (int i = 0; i < segments; i++) out.appendByTemplate(word, i);
+            return out;
+        }
+        for (int i = 0; i < segments; i++) out.append(COLORS[i & 3], null, word, i);
+        return out;
+    }
+
+    @Benchmark
+    public Printer append () {
+        return build();
+    }
+
+    @Benchmark
+    public String toColorString () {
+        return printer.toColorString();
+    }
+
+    @Benchmark
+    public String toPlainString () {
+        return printer.toString();
+    }
+}
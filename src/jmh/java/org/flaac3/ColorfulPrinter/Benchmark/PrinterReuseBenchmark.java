@@ -0,0 +1,60 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Printer;
+import org.flaac3.ColorfulPrinter.PrinterPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每行日志一个 Printer 的三种用法：每次 new、同一个 Printer 反复 reset、从 PrinterPool 借用 <br/>
+ * 主要看每次操作的分配量：gradle jmh -Pjmh.includes=PrinterReuse（再给 JMH 传 -prof gc，看 gc.alloc.rate.norm）
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrinterReuseBenchmark {
+    @Param({"4", "32"})
+    public int segments;
+
+    private final String word = "segment";
+    private final StringBuilder out = new StringBuilder(4096);
+    private Printer printer;
+
+    @Setup(Level.Iteration)
+    public void setup () {
+        printer = new Printer();
+    }
+
+    /**
+     * 模拟一行日志：交替颜色追加若干段，然后渲染到同一个 StringBuilder
+     * */
+    private int line (Printer printer) {
+        for (int i = 0; i < segments; i++) printer.appendString((i & 1) == 0 ? Color.GREEN : Color.BLUE, null, word);
+        out.setLength(0);
+        printer.writeTo(out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int freshPrinter () {
+        return line(new Printer());
+    }
+
+    @Benchmark
+    public int resetPrinter () {
+        printer.reset();
+        return line(printer);
+    }
+
+    @Benchmark
+    public int pooledPrinter () {
+        try (var lease = PrinterPool.acquire()) {
+            return line(lease.printer());
+        }
+    }
+}
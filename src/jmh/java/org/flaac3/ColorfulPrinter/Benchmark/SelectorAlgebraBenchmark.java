@@ -0,0 +1,89 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Utils.Selector.Selector;
+import org.flaac3.ColorfulPrinter.Utils.Selector.SortSelector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selector、SortSelector 的集合运算和下标查找，覆盖不同的元素数量和选择形状 <br/>
+ * 例如：gradle jmh -Pjmh.includes=SelectorAlgebra -Pjmh.profilers=gc
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SelectorAlgebraBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"SINGLE_RANGE", "SCATTERED", "REVERSED"})
+    public SelectorShape shape;
+
+    private Selector selector;
+    private Selector other; //形状相同、错开几个元素的另一个选择
+    private SortSelector sortSelector;
+    private SortSelector otherSort;
+    private SortSelector half; //选择 sortSelector 中前一半的下标
+    private int[] queries;
+
+    @Setup
+    public void setup () {
+        selector = shape.create(size, 0);
+        other = shape.create(size, 3);
+        sortSelector = selector.sort();
+        otherSort = other.sort();
+        half = new SortSelector(new int[][]{{0, Math.max(0, sortSelector.size() / 2 - 1)}});
+        var random = new Random(42);
+        queries = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) queries[i] = random.nextInt(selector.size());
+    }
+
+    @Benchmark
+    public Selector selectorPlus () {
+        return selector.plus(other);
+    }
+
+    @Benchmark
+    public Selector selectorMinus () {
+        return selector.minus(other);
+    }
+
+    @Benchmark
+    public SortSelector sort () {
+        return selector.sort();
+    }
+
+    @Benchmark
+    public SortSelector sortPlus () {
+        return sortSelector.plus(otherSort);
+    }
+
+    @Benchmark
+    public SortSelector sortMinus () {
+        return sortSelector.minus(otherSort);
+    }
+
+    @Benchmark
+    public SortSelector sortIntersect () {
+        return sortSelector.intersect(otherSort);
+    }
+
+    @Benchmark
+    public SortSelector getSortSelector () {
+        return sortSelector.get(half);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void getIndex (Blackhole blackhole) {
+        for (int query : queries) blackhole.consume(selector.get(query));
+    }
+}
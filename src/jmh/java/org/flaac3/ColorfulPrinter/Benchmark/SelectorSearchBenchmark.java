@@ -0,0 +1,107 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Utils.Selector.RangeList;
+import org.flaac3.ColorfulPrinter.Utils.Selector.SortSelector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比原来在 ArrayList<Integer> 索引列表上的查找、RangeList 上的二分查找，以及 get(Selector) 那样在上一次结果附近的倍增查找
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SelectorSearchBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"16", "1024", "65536"})
+    public int rangeCount;
+
+    private RangeList ranges;
+    private ArrayList<Integer> indexList; //原来的装箱索引列表
+    private int[] legacyQueries; //原来的查找能正确处理的下标
+    private int[] queries;
+    private int[] nearQueries; //和 queries 中对应下标相距不远的更小的下标
+
+    @Setup
+    public void setup () {
+        var random = new Random(42);
+        var pairs = new int[rangeCount][];
+        int left = 0;
+        for (int i = 0; i < rangeCount; i++) {
+            int right = left + random.nextInt(8);
+            pairs[i] = right == left ? new int[]{left} : new int[]{left, right};
+            left = right + 2;
+        }
+        ranges = new SortSelector(pairs).getRanges();
+        indexList = new ArrayList<>(rangeCount);
+        for (int i = 0; i < rangeCount; i++) indexList.add(ranges.prefix(i));
+
+        int total = ranges.total();
+        queries = new int[QUERIES];
+        nearQueries = new int[QUERIES];
+        var legacy = new ArrayList<Integer>();
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = random.nextInt(total);
+            nearQueries[q] = Math.max(0, queries[q] - random.nextInt(64));
+            try {
+                if (legacySearch(indexList, queries[q], rangeCount - 1) == ranges.search(queries[q])) legacy.add(queries[q]);
+            } catch (IndexOutOfBoundsException ignored) {} //原来的实现在这里会越界
+        }
+        legacyQueries = legacy.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 原来 Selector.search 的实现，只用来对比
+     * */
+    private static int legacySearch (List<Integer> indexList, int indexNum, int fromIndex) {
+        var size = indexList.size();
+        if (indexNum >= indexList.get(fromIndex)) return fromIndex;
+        while (true) {
+            size >>= 1;
+            var middle = fromIndex - size;
+            if (indexNum < indexList.get(middle)) {
+                if (size == 1) return middle - 1;
+                fromIndex = middle;
+            } else if (size == 1) return middle;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void legacy (Blackhole blackhole) {
+        for (int query : legacyQueries) blackhole.consume(legacySearch(indexList, query, rangeCount - 1));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void binarySearch (Blackhole blackhole) {
+        for (int query : queries) blackhole.consume(ranges.search(query));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void firstThenGallop (Blackhole blackhole) {
+        for (int q = 0; q < QUERIES; q++) {
+            int i = ranges.search(queries[q]);
+            blackhole.consume(ranges.search(nearQueries[q], i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void firstThenBinarySearch (Blackhole blackhole) {
+        for (int q = 0; q < QUERIES; q++) {
+            blackhole.consume(ranges.search(queries[q]));
+            blackhole.consume(ranges.search(nearQueries[q]));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Utils.Selector.Selector;
+
+import java.util.ArrayList;
+
+/**
+ * 基准测试用的几种选择形状，都是在 0 ~ size - 1 之中选择
+ * */
+public enum SelectorShape {
+    /**
+     * 中间一整段连续的范围
+     * */
+    SINGLE_RANGE {
+        @Override
+        int[][] ranges (int size, int shift) {
+            int from = Math.min(size / 4 + shift, size - 1);
+            return new int[][]{{from, Math.max(from, size * 3 / 4 - 1)}};
+        }
+    },
+    /**
+     * 每隔 7 个选一个的零散单点
+     * */
+    SCATTERED {
+        @Override
+        int[][] ranges (int size, int shift) {
+            var out = new ArrayList<int[]>();
+            for (int i = shift % 7; i < size; i += 7) out.add(new int[]{i});
+            return out.toArray(new int[0][]);
+        }
+    },
+    /**
+     * 每隔 8 个选一段从大到小的范围（LMaxRangeTwo）
+     * */
+    REVERSED {
+        @Override
+        int[][] ranges (int size, int shift) {
+            var out = new ArrayList<int[]>();
+            for (int i = shift % 8; i < size; i += 8) {
+                int end = Math.min(i + 3, size - 1);
+                out.add(end == i ? new int[]{i} : new int[]{end, i});
+            }
+            return out.toArray(new int[0][]);
+        }
+    };
+
+    /**
+     * 生成范围数组，shift 用来错开两个形状相同的选择
+     * */
+    abstract int[][] ranges (int size, int shift);
+
+    public Selector create (int size, int shift) {
+        return new Selector(ranges(size, shift));
+    }
+}
@@ -0,0 +1,50 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.TextColors;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 String.format 生成颜色转义和查预先生成的转义表的开销
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextColorsBenchmark {
+    private final Color[] colors = new Color[TextColors.PALETTE_SIZE];
+
+    @Setup
+    public void setup () {
+        for (int i = 0; i < colors.length; i++) colors[i] = new Color(i);
+    }
+
+    @Benchmark
+    public void format (Blackhole blackhole) {
+        for (Color color : colors) {
+            blackhole.consume(String.format("\u001b[48;5;%dm", color.colorID()));
+            blackhole.consume(String.format("\u001b[38;5;%dm", color.colorID()));
+        }
+    }
+
+    @Benchmark
+    public void table (Blackhole blackhole) {
+        for (Color color : colors) {
+            blackhole.consume(TextColors.getBackGroundColorStr(color));
+            blackhole.consume(TextColors.getTextColorStr(color));
+        }
+    }
+
+    @Benchmark
+    public void tableBytes (Blackhole blackhole) {
+        for (Color color : colors) {
+            blackhole.consume(TextColors.getBackGroundColorBytes(color));
+            blackhole.consume(TextColors.getTextColorBytes(color));
+        }
+    }
+}
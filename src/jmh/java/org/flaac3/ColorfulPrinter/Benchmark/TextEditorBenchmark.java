@@ -0,0 +1,72 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Printer;
+import org.flaac3.ColorfulPrinter.Utils.Selector.SortSelector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过 select 编辑 Printer：setColors、insert、delete，覆盖不同的 Text 数量和选择形状。<br/>
+ * REVERSED 形状要先 sort 成 SortSelector 才能编辑，这部分开销也算在里面。insert 和 delete 会修改 Printer，
+ * 所以每次调用之前都重新准备（Level.Invocation），Text 很少时的结果会受这部分干扰 <br/>
+ * 例如：gradle jmh -Pjmh.includes=TextEditor -Pjmh.profilers=gc
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextEditorBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int segments;
+
+    @Param({"SINGLE_RANGE", "SCATTERED", "REVERSED"})
+    public SelectorShape shape;
+
+    private final String word = "segment";
+    private int[][] ranges;
+    private Printer printer;
+
+    @Setup(Level.Trial)
+    public void setupTrial () {
+        ranges = shape.ranges(segments, 0);
+        printer = new Printer();
+        for (int i = 0; i < segments; i++) printer.appendString(word);
+    }
+
+    /**
+     * 和 SelectorShape 对应的 SortSelector，在基准方法里创建
+     * */
+    private SortSelector selection () {
+        return shape == SelectorShape.REVERSED ? SortSelector.of(ranges) : new SortSelector(ranges);
+    }
+
+    @Benchmark
+    public Printer setColors () {
+        return printer.select(selection(), editor -> editor.setColors(Color.RED, Color.DEFAULT));
+    }
+
+    @State(Scope.Thread)
+    public static class Fresh { //insert、delete 用的 Printer，每次调用前重新准备
+        Printer printer;
+
+        @Setup(Level.Invocation)
+        public void setup (TextEditorBenchmark benchmark) {
+            printer = new Printer();
+            for (int i = 0; i < benchmark.segments; i++) printer.appendString(benchmark.word);
+        }
+    }
+
+    @Benchmark
+    public Printer insert (Fresh fresh) {
+        return fresh.printer.select(selection(), editor -> editor.insert(Color.GREEN, "+"));
+    }
+
+    @Benchmark
+    public Printer delete (Fresh fresh) {
+        return fresh.printer.select(selection(), editor -> editor.delete());
+    }
+}
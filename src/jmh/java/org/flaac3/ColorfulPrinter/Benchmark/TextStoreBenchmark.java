@@ -0,0 +1,78 @@
+package org.flaac3.ColorfulPrinter.Benchmark;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Printer;
+import org.flaac3.ColorfulPrinter.Store.ArrayTextStore;
+import org.flaac3.ColorfulPrinter.Store.ChunkedTextStore;
+import org.flaac3.ColorfulPrinter.Store.ColumnarTextStore;
+import org.flaac3.ColorfulPrinter.Store.TextStore;
+import org.flaac3.ColorfulPrinter.Template;
+import org.flaac3.ColorfulPrinter.Utils.Selector.SortSelector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在大 Printer 中零散的 points 个位置上 select 之后 insert、delete，对比不同的 TextStore。
+ * Printer 会修改，所以每次调用之前都重新准备（Level.Invocation）<br/>
+ * 例如：gradle jmh -Pjmh.includes=TextStoreBenchmark -Pjmh.params=segments=1600000
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextStoreBenchmark {
+    public enum Store { ARRAY, CHUNKED, COLUMNAR }
+
+    @Param({"100000", "1600000"})
+    public int segments;
+
+    @Param({"2000"})
+    public int points;
+
+    @Param({"ARRAY", "CHUNKED", "COLUMNAR"})
+    public Store store;
+
+    private int[][] ranges;
+    private Printer printer;
+
+    @Setup(Level.Trial)
+    public void setupTrial () {
+        ranges = new int[points][];
+        for (int k = 0; k < points; k++) ranges[k] = new int[]{(int) ((long) k * (segments - 1) / points)};
+    }
+
+    @Setup(Level.Invocation)
+    public void setup () {
+        TextStore textStore = switch (store) {
+            case ARRAY -> new ArrayTextStore(segments);
+            case CHUNKED -> new ChunkedTextStore();
+            case COLUMNAR -> new ColumnarTextStore(segments);
+        };
+        printer = new Printer(textStore, Template.DEFAULT_MESSAGE);
+        for (int i = 0; i < segments; i++) printer.appendString("segment");
+    }
+
+    @Benchmark
+    public Printer insert () {
+        return printer.select(new SortSelector(ranges), editor -> editor.insert(Color.GREEN, "+"));
+    }
+
+    /**
+     * 不重新取色的删除，只有删除本身的开销
+     * */
+    @Benchmark
+    public Printer delete () {
+        return printer.select(new SortSelector(ranges), editor -> editor.delete(false));
+    }
+
+    /**
+     * 默认的删除：之后每个 Text 都要检查一遍是否通过模板取色，这部分对所有 TextStore 都一样
+     * */
+    @Benchmark
+    public Printer deleteAndRecolor () {
+        return printer.select(new SortSelector(ranges), editor -> editor.delete());
+    }
+}
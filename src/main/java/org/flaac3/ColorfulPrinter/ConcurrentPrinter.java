@@ -0,0 +1,176 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.Text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 可以被多个线程同时追加的 Printer：每个线程按线程 id 落到一个分段（stripe）里，只锁自己的分段，<br/>
+ * 追加时在分段锁里取全局递增的序号。读取时按顺序锁住所有分段，把新追加的内容按序号合并进内部的 Printer，
+ * 因为序号是在持有分段锁时取得的，锁住全部分段后看到的一定是从头开始连续的一段，所以每次读到的都是一致的快照。<br/>
+ * appendByTemplate 的编号在合并时按序号依次分配，和追加的先后顺序一致
+ * */
+public class ConcurrentPrinter {
+    private final Stripe[] stripes;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ReentrantLock mergeLock = new ReentrantLock(); //保护 merged，同一时间只有一个线程在合并或者读取
+    private final Printer merged; //已经合并好的内容
+    private volatile Template template = Template.DEFAULT_MESSAGE;
+
+    private enum Kind { APPEND, TEMPLATE, AT_PRE }
+
+    /**
+     * 一次追加操作，文本在追加的线程里就转换成字符串
+     * */
+    private record Entry (long seq, Kind kind, Color textColor, Color backGroundColor, String text, Template template) {}
+
+    private static class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        ArrayList<Entry> entries = new ArrayList<>();
+    }
+
+    public ConcurrentPrinter () {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+    /**
+     * @param stripeCount 分段数量，会向上取到 2 的幂
+     * */
+    public ConcurrentPrinter (int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) stripes[i] = new Stripe();
+        merged = new Printer().setRenderCache(true); //反复打印同一个缓冲区时只渲染新追加的部分
+    }
+
+    /**
+     * 设置之后追加的 appendByTemplate 使用的颜色模板
+     * */
+    public ConcurrentPrinter setTemplate (Template template) {
+        this.template = template;
+        return this;
+    }
+
+    /**
+     * 一系列追加字符串方法，可以在任意线程中调用
+     * */
+    public ConcurrentPrinter append (Color textColor, Color backGroundColor, Object... text) {
+        return add(Kind.APPEND, textColor, backGroundColor, text);
+    }
+    public ConcurrentPrinter append (Color textColor, Object... text) {
+        return append(textColor, null, text);
+    }
+    public ConcurrentPrinter append (Object... text) {
+        return append(null, null, text);
+    }
+    public ConcurrentPrinter appendByTemplate (Object... text) {
+        return add(Kind.TEMPLATE, null, null, text);
+    }
+    public ConcurrentPrinter appendAtPre (Object... text) {
+        return add(Kind.AT_PRE, null, null, text);
+    }
+
+    private ConcurrentPrinter add (Kind kind, Color textColor, Color backGroundColor, Object... text) {
+        var str = Text.objArrToString(text); //在锁外面转换字符串
+        var stripe = stripes[(int) mix(Thread.currentThread().getId()) & (stripes.length - 1)];
+        stripe.lock.lock();
+        try {
+            stripe.entries.add(new Entry(sequence.getAndIncrement(), kind, textColor, backGroundColor, str, template));
+        } finally {
+            stripe.lock.unlock();
+        }
+        return this;
+    }
+
+    private static long mix (long id) {
+        id *= 0x9E3779B97F4A7C15L;
+        return id ^ id >>> 32;
+    }
+
+    /**
+     * 锁住所有分段取出新追加的内容，按序号合并进 merged，调用时必须持有 mergeLock
+     * */
+    private void drain () {
+        var pending = new ArrayList<Entry>();
+        for (Stripe stripe : stripes) stripe.lock.lock(); //总是按同样的顺序加锁，不会死锁
+        try {
+            for (Stripe stripe : stripes) {
+                if (stripe.entries.isEmpty()) continue;
+                pending.addAll(stripe.entries);
+                stripe.entries = new ArrayList<>();
+            }
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) stripes[i].lock.unlock();
+        }
+        if (pending.isEmpty()) return;
+        var entries = pending.toArray(new Entry[0]);
+        Arrays.sort(entries, Comparator.comparingLong(Entry::seq)); //每个分段内部已经有序，合并后按全局序号排列
+        for (Entry entry : entries) {
+            switch (entry.kind()) {
+                case APPEND -> merged.append(entry.textColor(), entry.backGroundColor(), entry.text());
+                case TEMPLATE -> merged.setTemplate(entry.template()).appendByTemplate(entry.text());
+                case AT_PRE -> merged.appendAtPre(entry.text());
+            }
+        }
+    }
+
+    /**
+     * 在一致的快照上执行 work，work 中可以像普通 Printer 一样选择、修改和渲染，执行期间其他线程仍然可以追加
+     * */
+    public ConcurrentPrinter withSnapshot (Consumer<Printer> work) {
+        mergeLock.lock();
+        try {
+            drain();
+            work.accept(merged);
+        } finally {
+            mergeLock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * 当前快照的带颜色字符串
+     * */
+    public String toColorString (boolean resetAtEnd) {
+        var out = new String[1];
+        withSnapshot(printer -> out[0] = printer.toColorString(resetAtEnd));
+        return out[0];
+    }
+    public String toColorString () {
+        return toColorString(true);
+    }
+
+    public ConcurrentPrinter print (boolean resetAtEnd) {
+        System.out.print(toColorString(resetAtEnd));
+        return this;
+    }
+    public ConcurrentPrinter print () {
+        return print(true);
+    }
+    public ConcurrentPrinter println (boolean resetAtEnd) {
+        System.out.println(toColorString(resetAtEnd));
+        return this;
+    }
+    public ConcurrentPrinter println () {
+        return println(true);
+    }
+
+    /**
+     * 清空已经合并和还没有合并的全部内容
+     * */
+    public ConcurrentPrinter clear () {
+        return withSnapshot(Printer::clear);
+    }
+
+    @Override
+    public String toString () {
+        var out = new String[1];
+        withSnapshot(printer -> out[0] = printer.toString());
+        return out[0];
+    }
+}
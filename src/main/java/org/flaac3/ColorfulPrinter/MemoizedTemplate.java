@@ -0,0 +1,52 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.flaac3.ColorfulPrinter.Model.TextColors;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Template.memoize 的实现：小编号用数组，大编号用有上限的 LRU 缓存。<br/>
+ * 数组在多个线程间共享也没关系，TextColors 是不可变的，最多重复调用几次原来的模板；LRU 缓存的读写需要加锁
+ * */
+final class MemoizedTemplate implements Template {
+    static final int DEFAULT_DENSE_SIZE = 1024;
+    static final int DEFAULT_LRU_CAPACITY = 4096;
+
+    private final Template template;
+    private final TextColors[] dense; //下标就是编号，null 表示还没有取过色
+    private final LinkedHashMap<Integer, TextColors> lru; //lruCapacity 为 0 时是 null，超出数组的编号不缓存
+
+    MemoizedTemplate (Template template, int denseSize, int lruCapacity) {
+        this.template = template;
+        this.dense = new TextColors[denseSize];
+        this.lru = lruCapacity == 0 ? null : new LinkedHashMap<>(16, 0.75f, true) { //按访问顺序排列，最久没用的在最前面
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<Integer, TextColors> eldest) {
+                return size() > lruCapacity;
+            }
+        };
+    }
+
+    @Override
+    public TextColors getTextColor (int index) {
+        if (index >= 0 && index < dense.length) {
+            var out = dense[index];
+            if (out == null) {
+                out = template.getTextColor(index);
+                dense[index] = out; //模板返回 null 时不缓存，下次还会调用
+            }
+            return out;
+        }
+        if (lru == null) return template.getTextColor(index);
+        synchronized (lru) {
+            var out = lru.get(index);
+            if (out != null) return out;
+        }
+        var out = template.getTextColor(index); //调用原来的模板时不持有锁
+        if (out != null) synchronized (lru) {
+            lru.put(index, out);
+        }
+        return out;
+    }
+}
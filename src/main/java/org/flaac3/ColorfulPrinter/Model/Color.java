@@ -1,18 +1,70 @@
 package org.flaac3.ColorfulPrinter.Model;
 
-import java.util.Objects;
-
 public record Color (int colorID) {
+    /**
+     * DEFAULT 和 256 色调色板中每个颜色的共享实例，下标是 colorID + 1
+     * */
+    private static final Color[] CANONICAL = new Color[TextColors.PALETTE_SIZE + 1];
+    static {
+        for (int i = 0; i < CANONICAL.length; i++) CANONICAL[i] = new Color(i - 1);
+    }
+
     // DEFAULT 表示不更改当前的颜色，例如 setColors(Color.DEFAULT) 的效果就相当于没写这行代码
-    public static final Color DEFAULT = new Color(-1);
-    public static final Color BLACK = new Color(0);
-    public static final Color WHITE = new Color(15);
-    public static final Color RED = new Color(88);
-    public static final Color GREEN = new Color(10);
-    public static final Color YELLOW = new Color(11);
-    public static final Color BLUE = new Color(27);
-    public static final Color MAGENTA = new Color(197);
-    public static final Color CYAN = new Color(57);
+    public static final Color DEFAULT = of(-1);
+    public static final Color BLACK = of(0);
+    public static final Color WHITE = of(15);
+    public static final Color RED = of(88);
+    public static final Color GREEN = of(10);
+    public static final Color YELLOW = of(11);
+    public static final Color BLUE = of(27);
+    public static final Color MAGENTA = of(197);
+    public static final Color CYAN = of(57);
+
+    /**
+     * 24 位真彩色的 colorID 是 RGB_FLAG | 0xRRGGBB，和调色板的 0 ~ 255 不会重叠
+     * */
+    public static final int RGB_FLAG = 0x1000000;
+
+    /**
+     * 24 位真彩色，三个分量都在 0 ~ 255 之间。终端只支持 256 色或者 16 色时，渲染会换成最接近的颜色（见 ColorProfile）
+     * */
+    public static Color rgb (int red, int green, int blue) {
+        if ((red | green | blue) >>> 8 != 0)
+            throw new IllegalArgumentException("rgb 方法的参数必须在 0 ~ 255 之间");
+        return new Color(RGB_FLAG | red << 16 | green << 8 | blue);
+    }
+    /**
+     * 用 0xRRGGBB 形式的整数创建真彩色
+     * */
+    public static Color rgb (int rgb) {
+        if (rgb >>> 24 != 0) throw new IllegalArgumentException("rgb 方法的参数必须在 0x000000 ~ 0xFFFFFF 之间");
+        return new Color(RGB_FLAG | rgb);
+    }
+
+    /**
+     * 是否是 24 位真彩色，是的话可以通过 red、green、blue 读取分量
+     * */
+    public boolean isRgb () {
+        return colorID >>> 24 == 1;
+    }
+    public int red () {
+        return colorID >> 16 & 0xFF;
+    }
+    public int green () {
+        return colorID >> 8 & 0xFF;
+    }
+    public int blue () {
+        return colorID & 0xFF;
+    }
+
+    /**
+     * 返回 colorID 对应的 Color，DEFAULT 和调色板中的颜色（-1 ~ 255）返回共享的实例，不再创建新对象，
+     * 模板里每次都要返回颜色时应该用这个方法代替 new Color
+     * */
+    public static Color of (int colorID) {
+        if (colorID >= -1 && colorID < TextColors.PALETTE_SIZE) return CANONICAL[colorID + 1];
+        return new Color(colorID);
+    }
 
     @Override
     public boolean equals (Object o) { //判断 colorID 是否相等
@@ -22,7 +74,7 @@ public record Color (int colorID) {
     }
 
     @Override
-    public int hashCode () {
-        return Objects.hash(colorID);
+    public int hashCode () { //不用 Objects.hash，免得创建参数数组和装箱
+        return Integer.hashCode(colorID);
     }
 }
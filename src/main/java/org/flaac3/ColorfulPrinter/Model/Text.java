@@ -1,16 +1,30 @@
 package org.flaac3.ColorfulPrinter.Model;
 
+import org.flaac3.ColorfulPrinter.Render.AnsiSink;
+import org.flaac3.ColorfulPrinter.Render.AppendableSink;
 import org.flaac3.ColorfulPrinter.Template;
 
-import java.util.Arrays;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
 
 public class Text {
-    public Color textColor;
-    public Color backGroundColor;
-    public String textStr;
+    /**
+     * 文本颜色、背景颜色和是否需要重置压缩在一个 int 里：低 9 位是文本颜色编号，接着 9 位是背景颜色编号，再上一位是 needReset。<br/>
+     * 颜色编号：0 表示 null（终端默认颜色），1 ~ 256 是调色板中的颜色（colorID + 1），WIDE 表示调色板以外的颜色，实际的 Color 存在 wideColors 中
+     * */
+    private int colors = 0;
+    private Color[] wideColors = null; //调色板以外的颜色，[0] 是文本颜色，[1] 是背景颜色，只在用到时创建，修改时整个替换（副本之间可以共享）
+    private String textStr; //不能直接读取，得用 getTextStr 方法，延迟格式化的 Text 在第一次读取时才生成
+    private Object lazySource = null; //延迟格式化的来源：Supplier、参数数组、副本之间共享的 SharedSource 或者容器中的字符视图（见 loadView），生成 textStr 后置为 null
     public int templateIndex = -1; //未通过模板初始化是 -1，否则从 0 开始递增编号
-    private boolean needReset = false; //是否需要先重置颜色，再继续打印
+
+    private static final int CODE_BITS = 9;
+    private static final int CODE_MASK = (1 << CODE_BITS) - 1;
+    private static final int WIDE = CODE_MASK;
+    private static final int TEXT_COLOR_MASK = CODE_MASK;
+    private static final int BACKGROUND_COLOR_MASK = CODE_MASK << CODE_BITS;
+    private static final int NEED_RESET_BIT = 1 << (CODE_BITS * 2);
 
     /**
      * 直接设置文本颜色
@@ -24,6 +38,126 @@ public class Text {
         setNeedReset(previousText);
     }
 
+    /**
+     * 只有一个 String 时不用再经过 objArrToString（写成静态方法，免得 new Text(..., null) 产生歧义）
+     * */
+    public static Text ofString (Color textColor, Color backGroundColor, Text previousText, String text) {
+        return new Text().reuse(textColor, backGroundColor, previousText, text);
+    }
+    private Text () {}
+
+    /**
+     * 复用一个不再使用的 Text（Printer.reset 回收的），重新设置全部内容，效果和 ofString 相同
+     * */
+    public Text reuse (Color textColor, Color backGroundColor, Text previousText, String text) {
+        setInfo(
+                checkTextColor(textColor, previousText),
+                checkBackGroundColor(backGroundColor, previousText),
+                text
+        );
+        lazySource = null;
+        templateIndex = -1;
+        setNeedReset(previousText);
+        return this;
+    }
+    /**
+     * 复用时通过模板来设置文本颜色，效果和对应的构造方法相同
+     * */
+    public Text reuse (int index, Template template, Text previousText, String text) {
+        var textColors = template.getTextColor(index);
+        reuse(textColors.textColor(), textColors.backGroundColor(), previousText, text);
+        templateIndex = index;
+        return this;
+    }
+
+    /**
+     * 延迟格式化的 Text：只保存 supplier 或者参数数组，渲染或者读取文本时才生成字符串，并且只生成一次 <br/>
+     * 注意参数数组中的对象要到那时才会调用 toString，之前修改这些对象会影响结果
+     * */
+    public static Text lazy (Color textColor, Color backGroundColor, Text previousText, Supplier<? extends CharSequence> supplier) {
+        return new Text().reuseLazy(textColor, backGroundColor, previousText, supplier);
+    }
+    public static Text lazyArgs (Color textColor, Color backGroundColor, Text previousText, Object... args) {
+        return new Text().reuseLazyArgs(textColor, backGroundColor, previousText, args);
+    }
+    /**
+     * 复用为延迟格式化的 Text，见 lazy、lazyArgs
+     * */
+    public Text reuseLazy (Color textColor, Color backGroundColor, Text previousText, Supplier<? extends CharSequence> supplier) {
+        if (supplier == null) throw new IllegalArgumentException("lazy 方法的 supplier 参数不能为空");
+        reuse(textColor, backGroundColor, previousText, null);
+        lazySource = supplier;
+        return this;
+    }
+    public Text reuseLazyArgs (Color textColor, Color backGroundColor, Text previousText, Object... args) {
+        if (args == null) throw new IllegalArgumentException("lazyArgs 方法的 args 参数不能为空");
+        reuse(textColor, backGroundColor, previousText, null);
+        lazySource = args;
+        return this;
+    }
+
+    /**
+     * 返回文本，延迟格式化的 Text 在这里生成并缓存字符串
+     * */
+    public String getTextStr () {
+        if (lazySource != null) {
+            textStr = lazySource instanceof SharedSource shared ? shared.get() : format(lazySource);
+            lazySource = null;
+        }
+        return textStr;
+    }
+    private static String format (Object lazySource) {
+        if (lazySource instanceof Object[] args) return objArrToString(args);
+        if (lazySource instanceof Supplier<?> supplier) {
+            var chars = supplier.get();
+            return chars == null ? null : chars.toString();
+        }
+        return lazySource.toString(); //字符视图
+    }
+
+    /**
+     * 还没有格式化的 Text 被复制时，原来的 Text 和所有副本共享同一个 SharedSource：
+     * 不论哪一个先渲染（可能在 AsyncConsoleSink 的输出线程中），supplier 都只调用一次，大家得到同一个结果 <br/>
+     * supplier 抛出异常时不保存结果，之后读取会再试一次
+     * */
+    private static final class SharedSource {
+        private Object source; //Supplier 或者参数数组，格式化之后置为 null
+        private String value;
+
+        SharedSource (Object source) {
+            this.source = source;
+        }
+
+        synchronized String get () {
+            if (source != null) {
+                value = format(source);
+                source = null;
+            }
+            return value;
+        }
+    }
+    /**
+     * 设置文本，会取消还没有进行的延迟格式化
+     * */
+    public void setTextStr (String textStr) {
+        this.textStr = textStr;
+        lazySource = null;
+    }
+    /**
+     * 是否还没有生成字符串
+     * */
+    public boolean isLazy () {
+        return lazySource != null;
+    }
+    /**
+     * 估算文本长度，不会触发延迟格式化
+     * */
+    public int lengthHint () {
+        if (lazySource instanceof CharSequence chars && !(lazySource instanceof Supplier)) return chars.length();
+        if (isLazy()) return 16;
+        return textStr != null ? textStr.length() : 4;
+    }
+
     /**
      * 通过模板来设置文本颜色
      * */
@@ -38,28 +172,143 @@ public class Text {
         setNeedReset(previousText);
     }
 
+    /**
+     * 复制构造方法，见 copy
+     * */
+    private Text (Text source) {
+        this.colors = source.colors;
+        this.wideColors = source.wideColors;
+        this.textStr = source.textStr;
+        this.templateIndex = source.templateIndex;
+        if (source.lazySource instanceof CharSequence chars && !(source.lazySource instanceof Supplier)) {
+            this.textStr = chars.toString(); //字符视图之后可能被容器改写，副本要保存字符串
+        } else if (source.lazySource != null) { //还没有格式化的话，副本和原来的 Text 共享格式化的结果
+            if (!(source.lazySource instanceof SharedSource)) source.lazySource = new SharedSource(source.lazySource);
+            this.lazySource = source.lazySource;
+        }
+    }
+
+    /**
+     * 复制一个内容相同的 Text，之后修改原来的 Text 不会影响副本。延迟格式化的 Text 复制之后仍然延迟，
+     * 但是和原来的 Text 共享结果，supplier 只会调用一次
+     * */
+    public Text copy () {
+        return new Text(this);
+    }
+
     /**
      * （构造方法用）设置文本、文本颜色、背景颜色三个基础信息
      * */
     private void setInfo (Color textColor, Color backGroundColor, String text) {
-        this.textColor = textColor;
-        this.backGroundColor = backGroundColor;
+        setColors(textColor, backGroundColor);
         this.textStr = text;
     }
 
+    /**
+     * 颜色的读取和设置，null 表示终端默认颜色。这里不处理 Color.DEFAULT，也不会更新 needReset，需要的话再调用 setNeedReset <br/>
+     * 调色板中的颜色读取时返回 Color.of 的共享实例
+     * */
+    public Color getTextColor () {
+        return decode(colors & TEXT_COLOR_MASK, 0);
+    }
+    public Color getBackGroundColor () {
+        return decode((colors & BACKGROUND_COLOR_MASK) >>> CODE_BITS, 1);
+    }
+    public void setTextColor (Color textColor) {
+        int code = encode(textColor);
+        setWide(0, code == WIDE ? textColor : null);
+        colors = colors & ~TEXT_COLOR_MASK | code;
+    }
+    public void setBackGroundColor (Color backGroundColor) {
+        int code = encode(backGroundColor);
+        setWide(1, code == WIDE ? backGroundColor : null);
+        colors = colors & ~BACKGROUND_COLOR_MASK | code << CODE_BITS;
+    }
+    public void setColors (Color textColor, Color backGroundColor) {
+        setTextColor(textColor);
+        setBackGroundColor(backGroundColor);
+    }
+
+    /**
+     * 比较颜色，调色板中的颜色只比较编号
+     * */
+    public boolean isTextColor (Color textColor) {
+        int code = colors & TEXT_COLOR_MASK;
+        return code == encode(textColor) && (code != WIDE || wideColors[0].equals(textColor));
+    }
+    public boolean isBackGroundColor (Color backGroundColor) {
+        int code = (colors & BACKGROUND_COLOR_MASK) >>> CODE_BITS;
+        return code == encode(backGroundColor) && (code != WIDE || wideColors[1].equals(backGroundColor));
+    }
+
+    /**
+     * （列式容器用）压缩后的颜色和 needReset，格式见 colors 字段。hasWideColor 为 true 时还要另外保存 getTextColor、getBackGroundColor
+     * */
+    public int getPackedColors () {
+        return colors;
+    }
+    public static boolean hasWideColor (int packedColors) {
+        return (packedColors & TEXT_COLOR_MASK) == WIDE || (packedColors & BACKGROUND_COLOR_MASK) >>> CODE_BITS == WIDE;
+    }
+    /**
+     * （列式容器用）直接设置全部内容，不做任何检查，wideTextColor、wideBackGroundColor 只在对应的颜色编号是 WIDE 时使用
+     * */
+    public Text load (int packedColors, Color wideTextColor, Color wideBackGroundColor, String text, int templateIndex) {
+        this.colors = packedColors;
+        this.wideColors = hasWideColor(packedColors) ? new Color[]{
+                (packedColors & TEXT_COLOR_MASK) == WIDE ? wideTextColor : null,
+                (packedColors & BACKGROUND_COLOR_MASK) >>> CODE_BITS == WIDE ? wideBackGroundColor : null
+        } : null;
+        this.textStr = text;
+        this.lazySource = null;
+        this.templateIndex = templateIndex;
+        return this;
+    }
+    /**
+     * 和 load 一样，但是文本是容器中的字符视图，渲染时直接输出视图中的字符，只有读取文本时才生成字符串。
+     * 视图之后可能被容器改写，只适合 readOnlyIterator 那样用完就丢的 Text
+     * */
+    public Text loadView (int packedColors, Color wideTextColor, Color wideBackGroundColor, CharSequence text, int templateIndex) {
+        load(packedColors, wideTextColor, wideBackGroundColor, null, templateIndex);
+        this.lazySource = text;
+        return this;
+    }
+    public static Text ofPacked (int packedColors, Color wideTextColor, Color wideBackGroundColor, String text, int templateIndex) {
+        return new Text().load(packedColors, wideTextColor, wideBackGroundColor, text, templateIndex);
+    }
+
+    private static int encode (Color c) {
+        if (c == null) return 0;
+        int id = c.colorID();
+        return id >= 0 && id < TextColors.PALETTE_SIZE ? id + 1 : WIDE;
+    }
+    private Color decode (int code, int wideSlot) {
+        if (code == 0) return null;
+        if (code == WIDE) return wideColors[wideSlot];
+        return Color.of(code - 1);
+    }
+    private void setWide (int slot, Color c) {
+        if (wideColors == null) {
+            if (c == null) return;
+            wideColors = new Color[2];
+        } else wideColors = wideColors.clone(); //副本可能共享同一个数组
+        wideColors[slot] = c;
+        if (wideColors[0] == null && wideColors[1] == null) wideColors = null;
+    }
+
     /**
      * 对于 Color.DEFAULT 的处理
      * */
     private static Color checkTextColor (Color textColor, Text previousText) {
         if (Color.DEFAULT.equals(textColor)) {
             if (previousText == null) return null;
-            else return previousText.textColor;
+            else return previousText.getTextColor();
         } else return textColor;
     }
     private static Color checkBackGroundColor (Color backGroundColor, Text previousText) {
         if (Color.DEFAULT.equals(backGroundColor)) {
             if (previousText == null) return null;
-            else return previousText.backGroundColor;
+            else return previousText.getBackGroundColor();
         } else return backGroundColor;
     }
 
@@ -67,20 +316,26 @@ public class Text {
      * 根据当前 Text 和上一个 Text 的差别判断出是否需要重置颜色
      * */
     public Text setNeedReset (Text previousText) {
-        needReset = previousText != null
-                && (textColor == null && previousText.textColor != null
-                        || backGroundColor == null && previousText.backGroundColor != null
+        var needReset = previousText != null
+                && ((colors & TEXT_COLOR_MASK) == 0 && (previousText.colors & TEXT_COLOR_MASK) != 0
+                        || (colors & BACKGROUND_COLOR_MASK) == 0 && (previousText.colors & BACKGROUND_COLOR_MASK) != 0
                 );
+        colors = needReset ? colors | NEED_RESET_BIT : colors & ~NEED_RESET_BIT;
         return this;
     }
+    public boolean isNeedReset () {
+        return (colors & NEED_RESET_BIT) != 0;
+    }
 
     /**
      * 通过模板来修改 Text 的文本颜色和背景色
      * */
     public void setColorByTemplate (Template template, Text previousText) {
         var textColors = template.getTextColor(templateIndex); //传递当前 Text 的编号
-        textColor = checkTextColor(textColors.textColor(), previousText);
-        backGroundColor = checkBackGroundColor(textColors.backGroundColor(), previousText);
+        setColors(
+                checkTextColor(textColors.textColor(), previousText),
+                checkBackGroundColor(textColors.backGroundColor(), previousText)
+        );
         setNeedReset(previousText);
     }
 
@@ -89,22 +344,68 @@ public class Text {
      * */
     public String toColorString() {
         var s = new StringBuilder();
-        if (needReset) s.append(TextColors.ResetStr);
-        if (backGroundColor != null) s.append(TextColors.getBackGroundColorStr(backGroundColor));
-        if (textColor != null) s.append(TextColors.getTextColorStr(textColor));
-        if (textStr != null) s.append(textStr); else s.append("null");
+        try {
+            render(new AppendableSink(s));
+        } catch (IOException e) { //StringBuilder 不会抛出 IOException
+            throw new UncheckedIOException(e);
+        }
         return s.toString();
     }
 
+    /**
+     * 把带颜色转义的字符串直接写到 sink 中，不创建中间字符串
+     * */
+    public void render (AnsiSink sink) throws IOException {
+        if (isNeedReset()) sink.reset();
+        if ((colors & BACKGROUND_COLOR_MASK) != 0) sink.backGroundColor(getBackGroundColor());
+        if ((colors & TEXT_COLOR_MASK) != 0) sink.textColor(getTextColor());
+        renderText(sink);
+    }
+
+    /**
+     * 只输出文本内容，不带颜色转义
+     * */
+    public void renderText (AnsiSink sink) throws IOException {
+        if (lazySource instanceof CharSequence chars && !(lazySource instanceof Supplier)) { //字符视图直接输出，不生成字符串
+            sink.text(chars);
+            return;
+        }
+        var str = getTextStr();
+        sink.text(str != null ? str : "null");
+    }
+
     @Override
     public String toString() {
-        return textStr;
+        return getTextStr();
     }
 
     /**
-     * 把任意对象数组都转换并且合并成 String
+     * 把任意对象数组都转换并且合并成 String <br/>
+     * 大多数情况只有一两个参数：一个 String 直接返回，两个参数直接拼接；更多参数时用一个 StringBuilder，
+     * CharSequence 和基本类型的包装类直接追加，不生成中间的 String。和原来一样，元素为 null 时抛出 NullPointerException
      * */
     public static String objArrToString (Object... objects) {
-        return Arrays.stream(objects).map(Object::toString).collect(Collectors.joining());
+        switch (objects.length) {
+            case 0:
+                return "";
+            case 1:
+                return objects[0] instanceof String str ? str : objects[0].toString();
+            case 2:
+                return objects[0].toString().concat(objects[1].toString());
+            default:
+                var out = new StringBuilder(objects.length * 8);
+                for (Object object : objects) append(out, object);
+                return out.toString();
+        }
+    }
+    private static void append (StringBuilder out, Object object) {
+        if (object instanceof CharSequence chars) out.append(chars);
+        else if (object instanceof Integer num) out.append(num.intValue());
+        else if (object instanceof Long num) out.append(num.longValue());
+        else if (object instanceof Character c) out.append(c.charValue());
+        else if (object instanceof Boolean b) out.append(b.booleanValue());
+        else if (object instanceof Double num) out.append(num.doubleValue());
+        else if (object instanceof Float num) out.append(num.floatValue());
+        else out.append(object.toString());
     }
 }
\ No newline at end of file
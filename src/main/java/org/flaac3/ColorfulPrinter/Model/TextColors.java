@@ -1,13 +1,162 @@
 package org.flaac3.ColorfulPrinter.Model;
 
+import java.nio.charset.StandardCharsets;
+
 public record TextColors (Color textColor, Color backGroundColor) {
-    public static final TextColors NO_COLOR = new TextColors(null, null);
+    /**
+     * of 方法的共享实例，按 (文本颜色编号 * CANONICAL_SIDE + 背景颜色编号) 存放，用到时才创建。
+     * 颜色编号：null 是 0，DEFAULT 是 1，调色板中的颜色是 colorID + 2
+     * */
+    private static final int CANONICAL_SIDE = 258;
+    private static final TextColors[] CANONICAL = new TextColors[CANONICAL_SIDE * CANONICAL_SIDE];
+    public static final TextColors NO_COLOR = of(null, null);
     public static final String ResetStr = "\u001b[0m";
     public static final String NextLineStr = "\r\n";
+    public static final int PALETTE_SIZE = 256; //256 色调色板的颜色数量，colorID 在 0~255 之间
+
+    /**
+     * 预先生成好的 256 个文本颜色、背景颜色转义，分别有 String 和 byte[] 两种形式，下标就是 colorID
+     * */
+    private static final String[] TEXT_COLOR_STR = new String[PALETTE_SIZE];
+    private static final String[] BACKGROUND_COLOR_STR = new String[PALETTE_SIZE];
+    private static final byte[][] TEXT_COLOR_BYTES = new byte[PALETTE_SIZE][];
+    private static final byte[][] BACKGROUND_COLOR_BYTES = new byte[PALETTE_SIZE][];
+    private static final byte[] RESET_BYTES = ResetStr.getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 不带 ESC[ 和 m 的 SGR 参数（例如 38;5;10），用来把多个属性合并成一条转义
+     * */
+    private static final String[] TEXT_COLOR_PARAM = new String[PALETTE_SIZE];
+    private static final String[] BACKGROUND_COLOR_PARAM = new String[PALETTE_SIZE];
+    private static final byte[][] TEXT_COLOR_PARAM_BYTES = new byte[PALETTE_SIZE][];
+    private static final byte[][] BACKGROUND_COLOR_PARAM_BYTES = new byte[PALETTE_SIZE][];
+
+    static {
+        for (int i = 0; i < PALETTE_SIZE; i++) {
+            TEXT_COLOR_STR[i] = "\u001b[38;5;" + i + "m";
+            BACKGROUND_COLOR_STR[i] = "\u001b[48;5;" + i + "m";
+            TEXT_COLOR_BYTES[i] = TEXT_COLOR_STR[i].getBytes(StandardCharsets.US_ASCII);
+            BACKGROUND_COLOR_BYTES[i] = BACKGROUND_COLOR_STR[i].getBytes(StandardCharsets.US_ASCII);
+            TEXT_COLOR_PARAM[i] = "38;5;" + i;
+            BACKGROUND_COLOR_PARAM[i] = "48;5;" + i;
+            TEXT_COLOR_PARAM_BYTES[i] = TEXT_COLOR_PARAM[i].getBytes(StandardCharsets.US_ASCII);
+            BACKGROUND_COLOR_PARAM_BYTES[i] = BACKGROUND_COLOR_PARAM[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * 返回颜色组合对应的 TextColors，两个颜色都是 null、DEFAULT 或者调色板中的颜色时返回共享的实例（颜色也换成 Color.of 的共享实例），
+     * 模板里每次都要返回颜色时应该用这个方法代替 new TextColors
+     * */
+    public static TextColors of (Color textColor, Color backGroundColor) {
+        int text = canonicalCode(textColor), backGround = canonicalCode(backGroundColor);
+        if (text < 0 || backGround < 0) return new TextColors(textColor, backGroundColor);
+        int key = text * CANONICAL_SIDE + backGround;
+        var out = CANONICAL[key]; //多个线程同时创建也没关系，record 的字段都是 final 的，最多多创建一次
+        if (out == null) {
+            out = new TextColors(
+                    textColor == null ? null : Color.of(textColor.colorID()),
+                    backGroundColor == null ? null : Color.of(backGroundColor.colorID())
+            );
+            CANONICAL[key] = out;
+        }
+        return out;
+    }
+    private static int canonicalCode (Color c) {
+        if (c == null) return 0;
+        if (c.colorID() < -1 || c.colorID() >= PALETTE_SIZE) return -1;
+        return c.colorID() + 2;
+    }
+
+    /**
+     * 是否能直接查表，超出调色板范围的 colorID 只能现场拼接
+     * */
+    private static boolean inPalette (Color c) {
+        return c.colorID() >= 0 && c.colorID() < PALETTE_SIZE;
+    }
+
+    /**
+     * 真彩色（38;2;r;g;b）转义的缓存：按 colorID 直接映射到 RGB_CACHE_SIZE 个槽中的一个，冲突时直接替换。
+     * 同一个颜色反复渲染时只是一次数组读取；多个线程同时替换也没关系，RgbEscape 的字段都是 final 的
+     * */
+    private static final int RGB_CACHE_BITS = 10;
+    private static final RgbEscape[] RGB_CACHE = new RgbEscape[1 << RGB_CACHE_BITS];
+
+    private static final class RgbEscape {
+        final int colorID;
+        final String text, backGround, textParam, backGroundParam;
+        final byte[] textBytes, backGroundBytes, textParamBytes, backGroundParamBytes;
+
+        RgbEscape (Color c) {
+            colorID = c.colorID();
+            var rgb = c.red() + ";" + c.green() + ";" + c.blue();
+            textParam = "38;2;" + rgb;
+            backGroundParam = "48;2;" + rgb;
+            text = "\u001b[" + textParam + "m";
+            backGround = "\u001b[" + backGroundParam + "m";
+            textBytes = text.getBytes(StandardCharsets.US_ASCII);
+            backGroundBytes = backGround.getBytes(StandardCharsets.US_ASCII);
+            textParamBytes = textParam.getBytes(StandardCharsets.US_ASCII);
+            backGroundParamBytes = backGroundParam.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static RgbEscape rgbEscape (Color c) {
+        int slot = c.colorID() * 0x9E3779B9 >>> (32 - RGB_CACHE_BITS);
+        var escape = RGB_CACHE[slot];
+        if (escape == null || escape.colorID != c.colorID()) RGB_CACHE[slot] = escape = new RgbEscape(c);
+        return escape;
+    }
+
     public static String getTextColorStr (Color c) {
-        return String.format("\u001b[38;5;%dm", c.colorID());
+        if (inPalette(c)) return TEXT_COLOR_STR[c.colorID()];
+        if (c.isRgb()) return rgbEscape(c).text;
+        return "\u001b[38;5;" + c.colorID() + "m";
     }
     public static String getBackGroundColorStr (Color c) {
-        return String.format("\u001b[48;5;%dm", c.colorID());
+        if (inPalette(c)) return BACKGROUND_COLOR_STR[c.colorID()];
+        if (c.isRgb()) return rgbEscape(c).backGround;
+        return "\u001b[48;5;" + c.colorID() + "m";
+    }
+
+    /**
+     * 字节形式的转义，返回的是共享的数组，调用者不能修改其中的内容
+     * */
+    public static byte[] getTextColorBytes (Color c) {
+        if (inPalette(c)) return TEXT_COLOR_BYTES[c.colorID()];
+        if (c.isRgb()) return rgbEscape(c).textBytes;
+        return getTextColorStr(c).getBytes(StandardCharsets.US_ASCII);
+    }
+    public static byte[] getBackGroundColorBytes (Color c) {
+        if (inPalette(c)) return BACKGROUND_COLOR_BYTES[c.colorID()];
+        if (c.isRgb()) return rgbEscape(c).backGroundBytes;
+        return getBackGroundColorStr(c).getBytes(StandardCharsets.US_ASCII);
+    }
+    public static byte[] getResetBytes () {
+        return RESET_BYTES;
+    }
+
+    /**
+     * SGR 参数形式，String 和 byte[] 两种
+     * */
+    public static String getTextColorParam (Color c) {
+        if (inPalette(c)) return TEXT_COLOR_PARAM[c.colorID()];
+        if (c.isRgb()) return rgbEscape(c).textParam;
+        return "38;5;" + c.colorID();
+    }
+    public static String getBackGroundColorParam (Color c) {
+        if (inPalette(c)) return BACKGROUND_COLOR_PARAM[c.colorID()];
+        if (c.isRgb()) return rgbEscape(c).backGroundParam;
+        return "48;5;" + c.colorID();
+    }
+    public static byte[] getTextColorParamBytes (Color c) {
+        if (inPalette(c)) return TEXT_COLOR_PARAM_BYTES[c.colorID()];
+        if (c.isRgb()) return rgbEscape(c).textParamBytes;
+        return getTextColorParam(c).getBytes(StandardCharsets.US_ASCII);
+    }
+    public static byte[] getBackGroundColorParamBytes (Color c) {
+        if (inPalette(c)) return BACKGROUND_COLOR_PARAM_BYTES[c.colorID()];
+        if (c.isRgb()) return rgbEscape(c).backGroundParamBytes;
+        return getBackGroundColorParam(c).getBytes(StandardCharsets.US_ASCII);
     }
-}
\ No newline at end of file
+}
@@ -3,19 +3,51 @@ package org.flaac3.ColorfulPrinter;
 import org.flaac3.ColorfulPrinter.Model.Color;
 import org.flaac3.ColorfulPrinter.Model.TextColors;
 import org.flaac3.ColorfulPrinter.Model.Text;
+import org.flaac3.ColorfulPrinter.Render.AnsiSink;
+import org.flaac3.ColorfulPrinter.Render.AppendableSink;
+import org.flaac3.ColorfulPrinter.Render.AsyncConsoleSink;
+import org.flaac3.ColorfulPrinter.Render.ByteEncoder;
+import org.flaac3.ColorfulPrinter.Render.ColorProfile;
+import org.flaac3.ColorfulPrinter.Render.ParallelRenderer;
+import org.flaac3.ColorfulPrinter.Render.RenderCache;
+import org.flaac3.ColorfulPrinter.Render.RenderMode;
+import org.flaac3.ColorfulPrinter.Render.SgrState;
+import org.flaac3.ColorfulPrinter.Store.ArrayTextStore;
+import org.flaac3.ColorfulPrinter.Store.SegmentIndex;
+import org.flaac3.ColorfulPrinter.Store.TextStore;
+import org.flaac3.ColorfulPrinter.Utils.IntBitmap;
 import org.flaac3.ColorfulPrinter.Utils.Selector.Range.Range;
 import org.flaac3.ColorfulPrinter.Utils.Selector.RangeWork;
+import org.flaac3.ColorfulPrinter.Utils.Selector.LazySelector;
 import org.flaac3.ColorfulPrinter.Utils.Selector.SortSelector;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class Printer {
-    private final ArrayList<Text> textResource = new ArrayList<>();
+    private final TextStore textResource; //存放 Text 的容器，默认是 ArrayTextStore
+    private final boolean storesTexts; //textResource.get 返回的是否就是保存的 Text，为 false 时修改之后要写回
     private Template template = Template.DEFAULT_MESSAGE; //默认颜色模板
     private int index = 0; //ArrayList 中通过模板初始化的 Text 数量
+    private RenderMode renderMode = RenderMode.PLAIN; //渲染颜色转义的方式
+    private ColorProfile colorProfile = ColorProfile.TRUECOLOR; //终端支持的颜色数量
+    private RenderCache renderCache = null; //渲染缓存，为 null 表示不使用缓存
+    private SegmentIndex segmentIndex = null; //查找索引，为 null 表示不使用索引，每次查找都遍历全部 Text
+    private ParallelRenderer parallelRenderer = null; //并行渲染器，为 null 表示只顺序渲染
+    private Text[] recycledTexts = null; //reset 回收的 Text，append 时优先复用
+    private int recycledCount = 0; //recycledTexts 中可以复用的 Text 数量
+    private static final int MAX_RECYCLED_TEXTS = 1 << 16; //最多回收的 Text 数量，免得一次很大的 Printer 之后一直占着内存
+    private static final int ESCAPE_LENGTH_PER_TEXT = 22; //每个 Text 的颜色转义大约占用的字符数（背景色加文本颜色）
 
     /**
      * 只选择当前的 Text
@@ -33,26 +65,45 @@ public class Printer {
     /**
      * 一系列构造方法
      * */
-    public Printer () {}
+    public Printer () {
+        this(new ArrayTextStore());
+    }
     public Printer (Template template) {
+        this();
         setTemplate(template);
     }
     public Printer (Color textColor, Color backGroundColor, Object... text) {
+        this();
         append(textColor, backGroundColor, text);
     }
     public Printer (Color textColor, Object... text) {
+        this();
         append(textColor, text);
     }
     public Printer (Object... text) {
+        this();
         append(text);
     }
 
+    /**
+     * 指定存放 Text 的容器，例如在很多位置插入、删除的大 Printer 可以用 ChunkedTextStore，传入的容器必须是空的
+     * */
+    public Printer (TextStore textStore) {
+        if (textStore == null || !textStore.isEmpty())
+            throw new IllegalArgumentException("Printer 的 textStore 参数不能为空，并且不能包含 Text");
+        this.textResource = textStore;
+        this.storesTexts = textStore.returnsStoredTexts();
+    }
+    public Printer (TextStore textStore, Template template) {
+        this(textStore);
+        setTemplate(template);
+    }
+
     /**
      * 一系列打印方法
      * */
     public Printer print (boolean resetAtEnd) {
-        System.out.print(toColorString(resetAtEnd));
-        return this;
+        return writeTo(System.out, resetAtEnd);
     }
     public Printer print () {
         return print(true);
@@ -64,14 +115,43 @@ public class Printer {
     public Printer println () {
         return println(true);
     }
+    /**
+     * 把当前内容的快照交给异步输出，由后台线程渲染并写出，调用线程不会等待终端
+     * */
+    public Printer print (AsyncConsoleSink sink, boolean resetAtEnd) {
+        sink.submit(snapshot(), resetAtEnd, false);
+        return this;
+    }
+    public Printer print (AsyncConsoleSink sink) {
+        return print(sink, true);
+    }
+    public Printer println (AsyncConsoleSink sink, boolean resetAtEnd) {
+        sink.submit(snapshot(), resetAtEnd, true);
+        return this;
+    }
+    public Printer println (AsyncConsoleSink sink) {
+        return println(sink, true);
+    }
+
+    /**
+     * 复制一个内容相同的 Printer（每个 Text 都会复制），之后修改当前对象不会影响快照
+     * */
+    public Printer snapshot () {
+        var out = new Printer(new ArrayTextStore(textResource.size()), template);
+        for (Text text : textResource) out.textResource.add(text.copy());
+        out.index = index;
+        out.renderMode = renderMode;
+        out.colorProfile = colorProfile;
+        return out;
+    }
 
     /**
      * 通过自定义颜色模板来打印的示例方法，顺便可以调用此方法取色
      * */
     public static Printer printlnColorTable () {
-        //通过 Lambda 自定义颜色模板，根据 index 创建新的背景颜色 Color 对象，而文本颜色恒为绿色
+        //通过 Lambda 自定义颜色模板，根据 index 取得背景颜色（Color.of、TextColors.of 返回共享的实例，不会每次创建新对象），而文本颜色恒为绿色
         var printer = new Printer( index ->
-            new TextColors(Color.GREEN, new Color(index))
+            TextColors.of(Color.GREEN, Color.of(index))
         );
         for (int i = 0; i < 256; i++) {
             if (i < 16) {
@@ -109,11 +189,88 @@ public class Printer {
         return this;
     }
 
+    /**
+     * 设置渲染颜色转义的方式，RenderMode.MINIMAL 只输出相邻 Text 之间发生变化的颜色
+     * */
+    public Printer setRenderMode (RenderMode renderMode) {
+        if (renderMode == null) throw new IllegalArgumentException("setRenderMode 函数的参数不能为空");
+        this.renderMode = renderMode;
+        if (renderCache != null) renderCache.structureChanged(0);
+        return this;
+    }
+    public RenderMode getRenderMode () {
+        return renderMode;
+    }
+
+    /**
+     * 设置终端支持的颜色数量，真彩色、256 色在不支持的终端上会换成最接近的颜色输出，例如 setColorProfile(ColorProfile.detect())
+     * */
+    public Printer setColorProfile (ColorProfile colorProfile) {
+        if (colorProfile == null) throw new IllegalArgumentException("setColorProfile 函数的参数不能为空");
+        this.colorProfile = colorProfile;
+        if (renderCache != null) renderCache.structureChanged(0);
+        return this;
+    }
+    public ColorProfile getColorProfile () {
+        return colorProfile;
+    }
+
+    /**
+     * 设置是否使用渲染缓存：反复打印同一个 Printer 时，只重新渲染追加或修改过的 Text
+     * */
+    public Printer setRenderCache (boolean useRenderCache) {
+        if (!useRenderCache) renderCache = null;
+        else if (renderCache == null) renderCache = new RenderCache();
+        return this;
+    }
+
+    /**
+     * 设置并行渲染器：Text 很多时 toColorString 分段并行渲染，传入 null 表示只顺序渲染。渲染缓存优先于并行渲染
+     * */
+    public Printer setParallelRenderer (ParallelRenderer parallelRenderer) {
+        this.parallelRenderer = parallelRenderer;
+        return this;
+    }
+    public Printer setParallelRender (boolean useParallelRender) {
+        if (!useParallelRender) parallelRenderer = null;
+        else if (parallelRenderer == null) parallelRenderer = new ParallelRenderer();
+        return this;
+    }
+
+    /**
+     * 设置是否使用查找索引：反复在同一个 Printer 中按文本、颜色查找时，不用每次都遍历全部 Text
+     * */
+    public Printer setSearchIndex (boolean useSearchIndex) {
+        if (!useSearchIndex) segmentIndex = null;
+        else if (segmentIndex == null) segmentIndex = new SegmentIndex();
+        return this;
+    }
+
+    /**
+     * 通知渲染缓存和查找索引：下标 from 到 to（含）的 Text 被修改了
+     * */
+    private void changed (int from, int to) {
+        if (renderCache != null) renderCache.changed(from, to);
+        if (segmentIndex != null) segmentIndex.changed(from, to);
+    }
+
+    /**
+     * 通知渲染缓存和查找索引：从下标 from 开始插入或者删除了 Text
+     * */
+    private void structureChanged (int from) {
+        if (renderCache != null) renderCache.structureChanged(from);
+        if (segmentIndex != null) segmentIndex.structureChanged(from);
+    }
+
     /**
      * 一系列追加字符串方法
      * */
     public Printer append (Color textColor, Color backGroundColor, Object... text) {
-        textResource.add(new Text(textColor, backGroundColor, getLastText(), text));
+        var recycled = takeRecycledText();
+        textResource.add(recycled == null
+                ? new Text(textColor, backGroundColor, getLastText(), text)
+                : recycled.reuse(textColor, backGroundColor, getLastText(), Text.objArrToString(text))
+        );
         return this;
     }
     public Printer append (Color textColor, Object... text) {
@@ -122,22 +279,64 @@ public class Printer {
     public Printer append (Object... text) {
         return append(null, null, text);
     }
+    /**
+     * 只追加一个 String 时不用创建参数数组，也不用合并字符串（没有叫 append，是为了不让 append(color, null, null) 这样的调用产生歧义）
+     * */
+    public Printer appendString (Color textColor, Color backGroundColor, String text) {
+        var recycled = takeRecycledText();
+        textResource.add(recycled == null
+                ? Text.ofString(textColor, backGroundColor, getLastText(), Objects.requireNonNull(text))
+                : recycled.reuse(textColor, backGroundColor, getLastText(), Objects.requireNonNull(text))
+        );
+        return this;
+    }
+    public Printer appendString (String text) {
+        return appendString(null, null, text);
+    }
+    /**
+     * 追加延迟格式化的 Text：只有真正渲染（或者读取文本）时才调用 supplier、把参数转换成字符串，没有打印就几乎没有开销
+     * */
+    public Printer appendLazy (Color textColor, Color backGroundColor, Supplier<? extends CharSequence> supplier) {
+        var recycled = takeRecycledText();
+        textResource.add(recycled == null
+                ? Text.lazy(textColor, backGroundColor, getLastText(), supplier)
+                : recycled.reuseLazy(textColor, backGroundColor, getLastText(), supplier)
+        );
+        return this;
+    }
+    public Printer appendLazy (Supplier<? extends CharSequence> supplier) {
+        return appendLazy(null, null, supplier);
+    }
+    public Printer appendLazyArgs (Color textColor, Color backGroundColor, Object... args) {
+        var recycled = takeRecycledText();
+        textResource.add(recycled == null
+                ? Text.lazyArgs(textColor, backGroundColor, getLastText(), args)
+                : recycled.reuseLazyArgs(textColor, backGroundColor, getLastText(), args)
+        );
+        return this;
+    }
     public Printer appendByTemplate (Object... text) {
-        textResource.add(new Text(index, template, getLastText(), text));
+        var recycled = takeRecycledText();
+        textResource.add(recycled == null
+                ? new Text(index, template, getLastText(), text)
+                : recycled.reuse(index, template, getLastText(), Text.objArrToString(text))
+        );
         index ++;
         return this;
     }
     public Printer appendAtPre (Object... text) {
         var lastText = getLastText();
         if (lastText == null) return append(text);
-        lastText.textStr += Text.objArrToString(text);
+        lastText.setTextStr(lastText.getTextStr() + Text.objArrToString(text));
+        writeBack(textResource.size() - 1, lastText);
+        changed(textResource.size() - 1, textResource.size() - 1);
         return this;
     }
     public Printer appendAtPreIfSameColor (Color textColor, Color backGroundColor, Object... text) {
         var lastText = getLastText();
         if (lastText != null) {
-            if ((Objects.equals(lastText.textColor, textColor) || Color.DEFAULT.equals(textColor))
-                    && (Objects.equals(lastText.backGroundColor, backGroundColor) || Color.DEFAULT.equals(backGroundColor))
+            if ((lastText.isTextColor(textColor) || Color.DEFAULT.equals(textColor))
+                    && (lastText.isBackGroundColor(backGroundColor) || Color.DEFAULT.equals(backGroundColor))
             ) return appendAtPre(text); else return append(textColor, backGroundColor, text);
         } else return append(textColor, backGroundColor, text);
     }
@@ -155,7 +354,8 @@ public class Printer {
          * */
         private void checkNeedResetAtNext (int index) {
             if (index >= textResource.size() - 1) return;
-            textResource.get(index + 1).setNeedReset(textResource.get(index));
+            var next = textResource.get(index + 1);
+            writeBack(index + 1, next.setNeedReset(textResource.get(index)));
         }
 
         /**
@@ -163,7 +363,44 @@ public class Printer {
          * */
         private void checkNeedReset (int from, int end) {
             if (end >= textResource.size() - 1) return;
-            textResource.get(end + 1).setNeedReset(from > 0 ? textResource.get(from - 1) : null);
+            var next = textResource.get(end + 1);
+            writeBack(end + 1, next.setNeedReset(from > 0 ? textResource.get(from - 1) : null));
+        }
+
+        /**
+         * 通知渲染缓存和查找索引：选中的 Text 都被修改了
+         * */
+        private void markChanged () {
+            if (renderCache == null && segmentIndex == null) return;
+            sortSelector.forEachRange(new RangeWork() {
+                @Override
+                public void ifRange (int start, int end) { changed(start, end); }
+                @Override
+                public void ifOne (int num) { changed(num, num); }
+            });
+        }
+
+        /**
+         * 把选中的下标合并成从小到大、互不相邻的左闭右开区间，返回 {froms, tos}，用来批量删除
+         * */
+        private int[][] selectedRanges () {
+            var froms = new int[sortSelector.rangesSize()];
+            var tos = new int[sortSelector.rangesSize()];
+            var count = new AtomicInteger(0);
+            sortSelector.forEachRange(new RangeWork() {
+                @Override
+                public void ifRange (int start, int end) { add(start, end + 1); }
+                @Override
+                public void ifOne (int num) { add(num, num + 1); }
+                private void add (int from, int to) {
+                    int c = count.get();
+                    if (c > 0 && tos[c - 1] == from) tos[c - 1] = to; //和上一个区间相邻就直接合并
+                    else {
+                        froms[c] = from; tos[c] = to; count.incrementAndGet();
+                    }
+                }
+            });
+            return new int[][]{Arrays.copyOf(froms, count.get()), Arrays.copyOf(tos, count.get())};
         }
 
         /**
@@ -184,7 +421,7 @@ public class Printer {
         public ArrayList<Color> getTextColor () {
             var list = new ArrayList<Color>();
             sortSelector.forEach(i ->
-                    list.add(textResource.get(i).textColor)
+                    list.add(textResource.get(i).getTextColor())
             );
             return list;
         }
@@ -195,7 +432,7 @@ public class Printer {
         public ArrayList<Color> getBackGroundColor () {
             var list = new ArrayList<Color>();
             sortSelector.forEach(i ->
-                    list.add(textResource.get(i).backGroundColor)
+                    list.add(textResource.get(i).getBackGroundColor())
             );
             return list;
         }
@@ -204,12 +441,13 @@ public class Printer {
          * 设置所有 Text 的文本颜色和背景颜色
          * */
         public void setColors (Color textColor, Color backGroundColor) {
+            markChanged();
             if (Color.DEFAULT.equals(textColor)) {
                 if (!Color.DEFAULT.equals(backGroundColor)) {
                     sortSelector.forEach(i -> {
                         var text = textResource.get(i);
-                        text.backGroundColor = backGroundColor;
-                        text.setNeedReset(i > 0 ? textResource.get(i - 1) : null);
+                        text.setBackGroundColor(backGroundColor);
+                        writeBack(i, text.setNeedReset(i > 0 ? textResource.get(i - 1) : null));
                     });
                     checkWithRange();
                 }
@@ -217,8 +455,8 @@ public class Printer {
                 if (Color.DEFAULT.equals(backGroundColor)) {
                     sortSelector.forEach(i -> {
                         var text = textResource.get(i);
-                        text.textColor = textColor;
-                        text.setNeedReset(i > 0 ? textResource.get(i - 1) : null);
+                        text.setTextColor(textColor);
+                        writeBack(i, text.setNeedReset(i > 0 ? textResource.get(i - 1) : null));
                     });
                     checkWithRange();
                 } else {
@@ -227,21 +465,21 @@ public class Printer {
                         public void ifRange (int start, int end) {
                             var first = textResource.get(start);
 
-                            first.textColor = textColor; first.backGroundColor = backGroundColor;
-                            first.setNeedReset(start > 0 ? textResource.get(start - 1) : null);
+                            first.setColors(textColor, backGroundColor);
+                            writeBack(start, first.setNeedReset(start > 0 ? textResource.get(start - 1) : null));
 
                             for (int i = start + 1; i <= end; i++) {
                                 var text = textResource.get(i);
-                                text.textColor = textColor; text.backGroundColor = backGroundColor;
-                                text.setNeedReset(null);
+                                text.setColors(textColor, backGroundColor);
+                                writeBack(i, text.setNeedReset(null));
                             }
                             checkNeedResetAtNext(end);
                         }
                         @Override
                         public void ifOne (int num) {
                             var text = textResource.get(num);
-                            text.textColor = textColor; text.backGroundColor = backGroundColor;
-                            text.setNeedReset(num > 0 ? textResource.get(num - 1) : null);
+                            text.setColors(textColor, backGroundColor);
+                            writeBack(num, text.setNeedReset(num > 0 ? textResource.get(num - 1) : null));
                             checkNeedResetAtNext(num);
                         }
                     });
@@ -255,27 +493,37 @@ public class Printer {
         public ArrayList<String> getText () {
             var list = new ArrayList<String>();
             sortSelector.forEach(i ->
-                    list.add(textResource.get(i).textStr)
+                    list.add(textResource.get(i).getTextStr())
             );
             return list;
         }
         public void setText (Object... newText) {
-            sortSelector.forEach(i ->
-                    textResource.get(i).textStr = Text.objArrToString(newText)
-            );
+            markChanged();
+            var str = Text.objArrToString(newText);
+            sortSelector.forEach(i -> {
+                var text = textResource.get(i);
+                text.setTextStr(str);
+                writeBack(i, text);
+            });
         }
         public void replace (String oldStr, String newStr) { //替换 Text 的字符串
+            markChanged();
             sortSelector.forEach(i -> {
-                var str = textResource.get(i).textStr;
+                var text = textResource.get(i);
+                var str = text.getTextStr();
                 if (str == null) return;
-                textResource.get(i).textStr = str.replace(oldStr, newStr);
+                text.setTextStr(str.replace(oldStr, newStr));
+                writeBack(i, text);
             });
         }
         public void replaceAll (String regex, String replacement) { //通过正则匹配来替换字符串
+            markChanged();
             sortSelector.forEach(i -> {
-                var str = textResource.get(i).textStr;
+                var text = textResource.get(i);
+                var str = text.getTextStr();
                 if (str == null) return;
-                textResource.get(i).textStr = str.replaceAll(regex, replacement);
+                text.setTextStr(str.replaceAll(regex, replacement));
+                writeBack(i, text);
             });
         }
 
@@ -283,6 +531,8 @@ public class Printer {
          * 删除 Text 的方法，其中 resetColor 是对于通过模板初始化的 Text，删除之后是否要重新编号并且重新取色
          * */
         public void delete (boolean resetColor) {
+            if (sortSelector.size() == 0) return;
+            structureChanged(sortSelector.getFirst());
             if (resetColor) {
                 var ranges = sortSelector.getRanges();
                 var lastRange = ranges.get(ranges.size() - 1);
@@ -303,25 +553,12 @@ public class Printer {
                     removeStep2(lastRange.right() + 2, textResource.size(), removeSize);
                 }
                 index -= removeSize;
-                sortSelector.forEachRange(false, new RangeWork() {
-                    @Override
-                    public void ifRange (int start, int end) { textResource.subList(end, start + 1).clear(); }
-                    @Override
-                    public void ifOne (int num) { textResource.remove(num); }
-                });
+                var removeRanges = selectedRanges();
+                textResource.removeRanges(removeRanges[0], removeRanges[1]);
             } else {
-                sortSelector.forEachRange(false, new RangeWork() {
-                    @Override
-                    public void ifRange (int start, int end) {
-                        checkNeedReset(end, start);
-                        textResource.subList(end, start + 1).clear();
-                    }
-                    @Override
-                    public void ifOne (int num) {
-                        checkNeedReset(num, num);
-                        textResource.remove(num);
-                    }
-                });
+                var removeRanges = selectedRanges();
+                for (int k = 0; k < removeRanges[0].length; k++) checkNeedReset(removeRanges[0][k], removeRanges[1][k] - 1);
+                textResource.removeRanges(removeRanges[0], removeRanges[1]);
             }
         }
         public void delete () { delete(true); }
@@ -338,6 +575,7 @@ public class Printer {
             if (text.templateIndex > -1) {
                 text.templateIndex -= removeSize;
                 text.setColorByTemplate(template, range.left() > 0 ? textResource.get(range.left() - 1) : null);
+                writeBack(index, text);
                 checkNeedResetAtNext(index);
             } else checkNeedReset(range.left(), range.right());
             return removeSize;
@@ -352,23 +590,30 @@ public class Printer {
                 if (text.templateIndex > -1) {
                     text.templateIndex -= removeSize;
                     text.setColorByTemplate(template, textResource.get(j - 1));
+                    writeBack(j, text);
                     checkNeedResetAtNext(j);
                 }
             }
         }
 
         /**
-         * 插入新 Text 的一系列方法
+         * 插入新 Text 的一系列方法，在每一个选定的 Text 之前插入（紧挨在这个编辑器之前插入的 Text 之后）<br/>
+         * 先算出所有插入位置和新的 Text，再交给 TextStore 一次性合并，只需要重新设置插入点之后那个 Text 是否需要重置颜色
          * */
         public TextEditor insert (Color textColor, Color backGroundColor, Object... text) {
-            var num = new AtomicInteger(1); //记录第几次循环（从左往右依次插入）
-            sortSelector.forEach(i -> { //遍历选定的下标集合
-                i += insertSize * num.getAndIncrement() - 1; //计算每次插入的位置
+            var str = Text.objArrToString(text);
+            var positions = sortSelector.toIntArray(); //选定的下标，下面换算成插入之前列表中的位置
+            if (positions.length == 0) return this;
+            var texts = new Text[positions.length];
+            structureChanged(positions[0] + insertSize - 1);
+            for (int k = 0; k < positions.length; k++) {
+                //这个编辑器之前已经在第 0 ~ k 个选定的 Text 之前各插入了 insertSize - 1 个 Text
+                var i = positions[k] += (insertSize - 1) * (k + 1);
                 var previousText = i > 0 ? textResource.get(i - 1) : null;
-                var nextText = textResource.get(i); //要在每一个选定的 Text 之前插入
-                textResource.add(i, new Text(textColor, backGroundColor, previousText, text));
-                nextText.setNeedReset(textResource.get(i));
-            });
+                texts[k] = Text.ofString(textColor, backGroundColor, previousText, str);
+                writeBack(i, textResource.get(i).setNeedReset(texts[k])); //插入点之后的 Text
+            }
+            textResource.insertAll(positions, texts);
             insertSize ++; return this;
         }
         public TextEditor insert (Color textColor, Object... text) {
@@ -380,31 +625,212 @@ public class Printer {
     }
 
     /**
-     * sortSelector 通过下标来指定选取范围，textEditWork 通过对应编辑器来修改 Text
+     * sortSelector 通过下标来指定选取范围，textEditWork 通过对应编辑器来修改 Text。
+     * sortSelector 为空（例如 find 没有找到）时什么也不做，textEditWork 不会被调用
      * */
     public Printer select (SortSelector sortSelector, Consumer<TextEditor> textEditWork) {
         if (sortSelector == null || textEditWork == null)
             throw new IllegalArgumentException("select 函数的参数均不能为空");
+        if (sortSelector.size() == 0) return this;
         if (!sortSelector.isSubscript(textResource.size()))
             throw new IllegalArgumentException("select 函数的 sortSelector 参数超出范围");
         textEditWork.accept(new TextEditor(sortSelector));
         return this;
     }
+    /**
+     * 用惰性的 Selector 表达式选取范围，这时才会计算表达式，结果必须是从小到大排列的
+     * */
+    public Printer select (LazySelector lazySelector, Consumer<TextEditor> textEditWork) {
+        if (lazySelector == null || textEditWork == null)
+            throw new IllegalArgumentException("select 函数的参数均不能为空");
+        return select(lazySelector.toSortSelector(), textEditWork);
+    }
+
+    /**
+     * 查找文本中包含 literal 的 Text，返回它们的下标，可以直接交给 select（没有找到时 select 什么也不做）
+     * */
+    public SortSelector find (String literal) {
+        if (literal == null) throw new IllegalArgumentException("find 函数的参数不能为空");
+        var candidates = segmentIndex == null ? null : segmentIndex.candidatesContaining(textResource, literal);
+        return query(candidates, text -> text.getTextStr() != null && text.getTextStr().contains(literal));
+    }
+    /**
+     * 查找文本中能匹配正则表达式 regex 的 Text（只要有一部分能匹配）。不含特殊字符的 regex 按普通字符串查找，可以用到索引
+     * */
+    public SortSelector findRegex (String regex) {
+        if (regex == null) throw new IllegalArgumentException("findRegex 函数的参数不能为空");
+        if (regex.chars().noneMatch(c -> "\\[](){}.*+?^$|".indexOf(c) >= 0)) return find(regex);
+        var pattern = Pattern.compile(regex);
+        return query(null, text -> text.getTextStr() != null && pattern.matcher(text.getTextStr()).find());
+    }
+    /**
+     * 查找文本颜色、背景颜色等于给定颜色的 Text（null 表示没有设置颜色）
+     * */
+    public SortSelector findByTextColor (Color textColor) {
+        var candidates = segmentIndex == null ? null : segmentIndex.candidatesWithTextColor(textResource, textColor);
+        return query(candidates, text -> text.isTextColor(textColor));
+    }
+    public SortSelector findByBackGroundColor (Color backGroundColor) {
+        var candidates = segmentIndex == null ? null : segmentIndex.candidatesWithBackGroundColor(textResource, backGroundColor);
+        return query(candidates, text -> text.isBackGroundColor(backGroundColor));
+    }
+    /**
+     * 查找通过模板初始化、编号为 templateIndex 的 Text
+     * */
+    public SortSelector findByTemplateIndex (int templateIndex) {
+        var candidates = segmentIndex == null ? null : segmentIndex.candidatesWithTemplateIndex(textResource, templateIndex);
+        return query(candidates, text -> text.templateIndex == templateIndex);
+    }
+
+    /**
+     * 逐个确认候选的 Text（为 null 时遍历全部 Text），返回满足 test 的下标
+     * */
+    private SortSelector query (IntBitmap candidates, Predicate<Text> test) {
+        var out = new IntBitmap();
+        if (candidates == null) {
+            for (int i = 0; i < textResource.size(); i++) {
+                if (test.test(textResource.get(i))) out.add(i);
+            }
+        } else {
+            candidates.forEach(i -> {
+                if (i < textResource.size() && test.test(textResource.get(i))) out.add(i);
+            });
+        }
+        return SortSelector.of(out);
+    }
 
     /**
      * 移除所有 Text
      * */
     public Printer clear () {
-        textResource.clear(); index = 0; return this;
+        textResource.clear(); index = 0; structureChanged(0); return this;
     }
 
     /**
-     * 带颜色的字符串
+     * 和 clear 一样移除所有 Text，但是容器保留已经分配的数组，移除的 Text 也留下来给之后的 append 复用，
+     * 反复使用同一个 Printer（例如每行日志一次）时几乎不再产生垃圾 <br/>
+     * 注意 reset 之前从容器中拿到的 Text 之后会被改写；快照（snapshot、异步输出）是复制的，不受影响
+     * */
+    public Printer reset () {
+        if (!storesTexts) return clear(); //get 返回的都是新生成的 Text，回收没有意义
+        int size = Math.min(textResource.size(), MAX_RECYCLED_TEXTS - recycledCount);
+        if (size > 0) {
+            if (recycledTexts == null || recycledTexts.length < recycledCount + size)
+                recycledTexts = Arrays.copyOf(recycledTexts == null ? new Text[0] : recycledTexts, Math.max(recycledCount + size, 16));
+            for (int i = 0; i < size; i++) recycledTexts[recycledCount++] = textResource.get(i);
+        }
+        return clear();
+    }
+
+    /**
+     * 取出一个 reset 回收的 Text，没有就返回 null
+     * */
+    private Text takeRecycledText () {
+        if (recycledCount == 0) return null;
+        var out = recycledTexts[--recycledCount];
+        recycledTexts[recycledCount] = null;
+        return out;
+    }
+
+    /**
+     * （PrinterPool 用）恢复成刚创建时的设置，保留容器和回收的 Text
+     * */
+    void restoreDefaults () {
+        reset();
+        template = Template.DEFAULT_MESSAGE;
+        renderMode = RenderMode.PLAIN;
+        colorProfile = ColorProfile.TRUECOLOR;
+        renderCache = null;
+        segmentIndex = null;
+        parallelRenderer = null;
+    }
+
+    /**
+     * 渲染引擎：按顺序把每个 Text 直接写进 sink，resetAtEnd 设置最后是否重置颜色
+     * */
+    public Printer render (AnsiSink sink, boolean resetAtEnd) throws IOException {
+        if (renderMode == RenderMode.MINIMAL) {
+            var state = new SgrState();
+            for (var it = textResource.readOnlyIterator(); it.hasNext(); ) state.render(it.next(), sink);
+            if (resetAtEnd) state.reset(sink);
+        } else {
+            for (var it = textResource.readOnlyIterator(); it.hasNext(); ) it.next().render(sink);
+            if (resetAtEnd) sink.reset();
+        }
+        return this;
+    }
+
+    /**
+     * 把带颜色的字符串流式写入 Appendable（例如 Writer），中间不生成字符串
+     * */
+    public Printer writeTo (Appendable out, boolean resetAtEnd) throws IOException {
+        return render(new AppendableSink(out).setColorProfile(colorProfile), resetAtEnd);
+    }
+    public Printer writeTo (Appendable out) throws IOException {
+        return writeTo(out, true);
+    }
+
+    /**
+     * 写入 StringBuilder 的版本，不需要处理 IOException
+     * */
+    public Printer writeTo (StringBuilder out, boolean resetAtEnd) {
+        try {
+            return render(new AppendableSink(out).setColorProfile(colorProfile), resetAtEnd);
+        } catch (IOException e) { //StringBuilder 不会抛出 IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+    public Printer writeTo (StringBuilder out) {
+        return writeTo(out, true);
+    }
+
+    /**
+     * 把带颜色的字符串按 UTF-8 直接编码成字节写入 OutputStream，不经过 PrintStream 的字符编码器
+     * */
+    public Printer writeTo (OutputStream out, boolean resetAtEnd) throws IOException {
+        var encoder = new ByteEncoder(out, Math.min(estimateLength(), ByteEncoder.DEFAULT_BUFFER_SIZE)).setColorProfile(colorProfile);
+        render(encoder, resetAtEnd);
+        encoder.flush();
+        return this;
+    }
+    public Printer writeTo (OutputStream out) throws IOException {
+        return writeTo(out, true);
+    }
+
+    /**
+     * 按 UTF-8 直接编码成字节写入 WritableByteChannel（例如 FileChannel、SocketChannel）
+     * */
+    public Printer writeTo (WritableByteChannel channel, boolean resetAtEnd) throws IOException {
+        var encoder = new ByteEncoder(channel, Math.min(estimateLength(), ByteEncoder.DEFAULT_BUFFER_SIZE)).setColorProfile(colorProfile);
+        render(encoder, resetAtEnd);
+        encoder.flush();
+        return this;
+    }
+    public Printer writeTo (WritableByteChannel channel) throws IOException {
+        return writeTo(channel, true);
+    }
+
+    /**
+     * PrintStream 同时是 OutputStream 和 Appendable，这里按它自己的字符编码一次性打印整个字符串
+     * */
+    public Printer writeTo (PrintStream out, boolean resetAtEnd) {
+        out.print(toColorString(resetAtEnd));
+        return this;
+    }
+    public Printer writeTo (PrintStream out) {
+        return writeTo(out, true);
+    }
+
+    /**
+     * 带颜色的字符串，整个渲染过程只使用一个 StringBuilder
      * */
     public String toColorString (boolean resetAtEnd) {
-        List<String> stringList = textResource.stream().map(Text::toColorString).collect(Collectors.toList());
-        if (resetAtEnd) stringList.add(TextColors.ResetStr);
-        return String.join("", stringList);
+        if (renderCache != null) return renderCache.toColorString(textResource, renderMode, colorProfile, resetAtEnd);
+        if (parallelRenderer != null && textResource.size() >= parallelRenderer.getThreshold())
+            return parallelRenderer.toColorString(textResource, renderMode, colorProfile, resetAtEnd);
+        var out = new StringBuilder(estimateLength());
+        writeTo(out, resetAtEnd);
+        return out.toString();
     }
     public String toColorString () {
         return toColorString(true);
@@ -415,6 +841,24 @@ public class Printer {
         return textResource.stream().map(Text::toString).collect(Collectors.joining());
     }
 
+    /**
+     * 估算渲染后的长度，用来一次性分配足够的 StringBuilder 容量
+     * */
+    private int estimateLength () {
+        long length = TextColors.ResetStr.length();
+        for (var it = textResource.readOnlyIterator(); it.hasNext(); ) {
+            length += ESCAPE_LENGTH_PER_TEXT + it.next().lengthHint();
+        }
+        return (int) Math.min(length, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * 修改了 textResource.get 得到的 Text 之后调用：容器的 get 返回的不是保存的对象本身时（例如 ColumnarTextStore），要写回容器
+     * */
+    private void writeBack (int i, Text text) {
+        if (!storesTexts) textResource.update(i, text);
+    }
+
     /**
      * 获取当前 ArrayList 中最后一个 Text ，列表为空就返回 null
      * */
@@ -0,0 +1,67 @@
+package org.flaac3.ColorfulPrinter;
+
+import java.util.ArrayDeque;
+
+/**
+ * 每个线程各自的 Printer 池：acquire 借出一个空的 Printer，用完在 try-with-resources 结束时自动 reset 并放回，<br/>
+ * 放回的 Printer 保留容器数组和回收的 Text，所以反复打印日志时稳定之后几乎不再分配内存。例如
+ * <pre>
+ * try (var lease = PrinterPool.acquire()) {
+ *     lease.printer().appendString("...").println();
+ * }
+ * </pre>
+ * 借出的 Printer 只能在当前线程里使用，close 之后不能再使用；在别的线程 close 的话会放回那个线程的池
+ * */
+public final class PrinterPool {
+    private static final int MAX_POOLED = 8; //每个线程最多保留的 Printer 数量（嵌套借用时才会超过 1 个）
+    private static final ThreadLocal<ArrayDeque<Lease>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private PrinterPool () {}
+
+    /**
+     * 借出一个使用默认设置的空 Printer
+     * */
+    public static Lease acquire () {
+        var lease = POOL.get().pollLast();
+        if (lease == null) lease = new Lease(new Printer());
+        lease.released = false;
+        return lease;
+    }
+    /**
+     * 借出一个使用指定颜色模板的空 Printer
+     * */
+    public static Lease acquire (Template template) {
+        var lease = acquire();
+        lease.printer.setTemplate(template);
+        return lease;
+    }
+
+    /**
+     * 一次借用，每个 Printer 固定对应一个 Lease 对象，反复借用时也不会创建新对象
+     * */
+    public static final class Lease implements AutoCloseable {
+        private final Printer printer;
+        private boolean released = false;
+
+        private Lease (Printer printer) {
+            this.printer = printer;
+        }
+
+        public Printer printer () {
+            if (released) throw new IllegalStateException("Printer 已经放回 PrinterPool，不能再使用");
+            return printer;
+        }
+
+        /**
+         * 重置 Printer 并放回当前线程的池，重复调用不会有效果
+         * */
+        @Override
+        public void close () {
+            if (released) return;
+            released = true;
+            printer.restoreDefaults();
+            var pool = POOL.get();
+            if (pool.size() < MAX_POOLED) pool.addLast(this);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+
+import java.io.IOException;
+
+/**
+ * 渲染的输出端，Printer 按顺序把每个 Text 的颜色转义和文本直接写进来，不再拼接中间字符串
+ * */
+public interface AnsiSink {
+    /**
+     * 输出重置颜色的转义
+     * */
+    void reset () throws IOException;
+    /**
+     * 输出设置文本颜色的转义
+     * */
+    void textColor (Color textColor) throws IOException;
+    /**
+     * 输出设置背景颜色的转义
+     * */
+    void backGroundColor (Color backGroundColor) throws IOException;
+    /**
+     * 输出文本内容
+     * */
+    void text (String text) throws IOException;
+    /**
+     * 输出任意字符序列（例如列式容器中的字符视图），默认实现是先转换成字符串
+     * */
+    default void text (CharSequence text) throws IOException {
+        text(text.toString());
+    }
+
+    /**
+     * 把重置、文本颜色、背景颜色合并成一条转义输出，例如 ESC[0;38;5;a;48;5;bm，其中颜色为 null 表示不设置<br/>
+     * 默认实现是分开输出，具体的输出端可以重写成一条转义
+     * */
+    default void sgr (boolean reset, Color textColor, Color backGroundColor) throws IOException {
+        if (reset) reset();
+        if (backGroundColor != null) backGroundColor(backGroundColor);
+        if (textColor != null) textColor(textColor);
+    }
+}
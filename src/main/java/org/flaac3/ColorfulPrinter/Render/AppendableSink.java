@@ -0,0 +1,67 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.TextColors;
+
+import java.io.IOException;
+
+/**
+ * 把渲染结果写进任意 Appendable（StringBuilder、Writer 等）的输出端
+ * */
+public class AppendableSink implements AnsiSink {
+    private final Appendable out;
+    private ColorProfile colorProfile = ColorProfile.TRUECOLOR;
+
+    public AppendableSink (Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * 设置终端支持的颜色数量，终端不支持的颜色会换成最接近的颜色输出
+     * */
+    public AppendableSink setColorProfile (ColorProfile colorProfile) {
+        if (colorProfile == null) throw new IllegalArgumentException("ColorProfile 不能为空");
+        this.colorProfile = colorProfile;
+        return this;
+    }
+
+    @Override
+    public void reset () throws IOException {
+        out.append(TextColors.ResetStr);
+    }
+
+    @Override
+    public void textColor (Color textColor) throws IOException {
+        out.append(colorProfile.getTextColorStr(textColor));
+    }
+
+    @Override
+    public void backGroundColor (Color backGroundColor) throws IOException {
+        out.append(colorProfile.getBackGroundColorStr(backGroundColor));
+    }
+
+    @Override
+    public void text (String text) throws IOException {
+        out.append(text);
+    }
+
+    @Override
+    public void text (CharSequence text) throws IOException {
+        out.append(text);
+    }
+
+    @Override
+    public void sgr (boolean reset, Color textColor, Color backGroundColor) throws IOException {
+        out.append("\u001b[");
+        if (reset) {
+            out.append('0');
+            if (textColor != null || backGroundColor != null) out.append(';');
+        }
+        if (textColor != null) {
+            out.append(colorProfile.getTextColorParam(textColor));
+            if (backGroundColor != null) out.append(';');
+        }
+        if (backGroundColor != null) out.append(colorProfile.getBackGroundColorParam(backGroundColor));
+        out.append('m');
+    }
+}
@@ -0,0 +1,273 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Printer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步的控制台输出：print 只把 Printer 的快照放进有界的环形队列，由唯一的后台线程（支持时用虚拟线程）取出渲染。<br/>
+ * 后台线程每次把队列里已有的快照全部取出，编码到同一个 ByteEncoder 里，攒成大块再写出，最后只 flush 一次。<br/>
+ * 队列满时的处理方式由 Backpressure 决定。某个快照渲染出错时跳过它，继续写同一批中的其他快照，第一个异常在 flush、close 时抛出 <br/>
+ * 后台线程不会阻止 JVM 退出，所以构造时会注册一个调用 close 的 shutdown hook，main 返回时队列中的快照也能写完；
+ * 不再使用时最好直接调用 close，同时移除这个 hook
+ * */
+public class AsyncConsoleSink implements Closeable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16; //后台线程每次写出的最大字节数
+
+    /**
+     * 队列满时：BLOCK 等待空位，DROP 丢弃新的快照，DROP_OLDEST 丢弃队列中最早的快照
+     * */
+    public enum Backpressure { BLOCK, DROP, DROP_OLDEST }
+
+    private record Job (Printer snapshot, boolean resetAtEnd, boolean newLine) {}
+
+    private final OutputStream out;
+    private final Backpressure backpressure;
+    private final Job[] ring; //环形队列
+    private int head = 0; //下一个要取出的位置
+    private int size = 0; //队列中的快照数量
+    private int inFlight = 0; //后台线程已经取出但是还没有写完的快照数量
+    private long dropped = 0;
+    private long failed = 0; //渲染或写出时出错的快照数量
+    private boolean closed = false;
+    private IOException failure = null; //后台线程遇到的第一个异常，在 flush、close 时抛出
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition(); //队列为空并且没有正在写的快照
+    private final Thread flusher;
+    private final Thread shutdownHook;
+
+    public AsyncConsoleSink () {
+        this(System.out, DEFAULT_CAPACITY, Backpressure.BLOCK);
+    }
+    public AsyncConsoleSink (OutputStream out, int capacity, Backpressure backpressure) {
+        if (out == null || backpressure == null || capacity < 1)
+            throw new IllegalArgumentException("AsyncConsoleSink 的 out、backpressure 参数不能为空，capacity 必须大于 0");
+        this.out = out;
+        this.backpressure = backpressure;
+        this.ring = new Job[capacity];
+        this.flusher = startFlusher(this::runFlusher);
+        this.shutdownHook = new Thread(this::closeQuietly, "ColorfulPrinter-shutdown");
+        try {
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) { //JVM 已经在退出
+        }
+    }
+
+    /**
+     * 有虚拟线程（Java 21 起）时用虚拟线程，否则用守护线程。这里通过反射调用，这样在 Java 17 上也能编译
+     * */
+    private static Thread startFlusher (Runnable task) {
+        try {
+            var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builder.getClass().getMethod("name", String.class).invoke(builder, "ColorfulPrinter-flusher");
+            var thread = (Thread) builder.getClass().getMethod("unstarted", Runnable.class).invoke(builder, task);
+            thread.start();
+            return thread;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            var thread = new Thread(task, "ColorfulPrinter-flusher");
+            thread.setDaemon(true);
+            thread.start();
+            return thread;
+        }
+    }
+
+    /**
+     * 把快照放进队列，snapshot 之后不能再修改（Printer.print(sink) 会自动复制）
+     * @return 是否放进了队列（DROP 模式下队列满时返回 false）
+     * */
+    public boolean submit (Printer snapshot, boolean resetAtEnd, boolean newLine) {
+        var job = new Job(snapshot, resetAtEnd, newLine);
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("AsyncConsoleSink 已经关闭");
+            if (size == ring.length) {
+                switch (backpressure) {
+                    case DROP -> {
+                        dropped++;
+                        return false;
+                    }
+                    case DROP_OLDEST -> {
+                        ring[head] = null;
+                        head = (head + 1) % ring.length;
+                        size--;
+                        dropped++;
+                    }
+                    default -> {
+                        while (size == ring.length && !closed) notFull.awaitUninterruptibly();
+                        if (closed) throw new IllegalStateException("AsyncConsoleSink 已经关闭");
+                    }
+                }
+            }
+            ring[(head + size) % ring.length] = job;
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 后台线程：每次取出队列中全部的快照，渲染到同一个 ByteEncoder，写完一批再 flush
+     * */
+    private void runFlusher () {
+        var encoder = new ByteEncoder(out, WRITE_BUFFER_SIZE);
+        var batch = new Job[ring.length];
+        while (true) {
+            int count;
+            lock.lock();
+            try {
+                while (size == 0 && !closed) notEmpty.awaitUninterruptibly();
+                if (size == 0) return; //已经关闭并且写完了
+                count = size;
+                for (int i = 0; i < count; i++) {
+                    batch[i] = ring[head];
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                }
+                size = 0;
+                inFlight = count;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null; //这一批中的第一个异常
+            int errors = 0;
+            for (int i = 0; i < count; i++) {
+                var job = batch[i];
+                batch[i] = null;
+                try {
+                    encoder.setColorProfile(job.snapshot().getColorProfile()); //每个快照按自己的颜色数量输出
+                    job.snapshot().render(encoder, job.resetAtEnd());
+                    if (job.newLine()) encoder.text(System.lineSeparator());
+                } catch (IOException | RuntimeException e) { //只跳过出错的快照，不能让后台线程退出
+                    errors++;
+                    if (error == null) error = e instanceof IOException io ? io : new IOException("AsyncConsoleSink 渲染快照时出错", e);
+                    try {
+                        encoder.reset(); //出错的快照可能只写了一半，重置颜色，免得影响后面的快照
+                        if (job.newLine()) encoder.text(System.lineSeparator());
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+            try {
+                encoder.flush();
+                out.flush();
+            } catch (IOException e) {
+                if (error == null) error = e;
+            }
+
+            lock.lock();
+            try {
+                if (error != null && failure == null) failure = error;
+                failed += errors;
+                inFlight = 0;
+                if (size == 0) idle.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 等待已经放进队列的快照全部写出
+     * */
+    public void flush () throws IOException {
+        lock.lock();
+        try {
+            while ((size > 0 || inFlight > 0) && flusher.isAlive()) idle.await(100, TimeUnit.MILLISECONDS);
+            throwFailure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待 AsyncConsoleSink 写出时被中断", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * shutdown hook 调用：JVM 退出之前写完队列中的快照，异常已经没有地方可以抛出
+     * */
+    private void closeQuietly () {
+        try {
+            close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void throwFailure () throws IOException {
+        if (failure != null) {
+            var e = failure;
+            failure = null;
+            throw e;
+        }
+    }
+
+    /**
+     * 因为队列满而丢弃的快照数量
+     * */
+    public long getDroppedCount () {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 渲染或写出时出错而跳过的快照数量
+     * */
+    public long getFailedCount () {
+        lock.lock();
+        try {
+            return failed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 不再接收新的快照，等待队列中的快照写完后结束后台线程。不会关闭 out
+     * */
+    @Override
+    public void close () throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) { //JVM 已经在退出，hook 会自己结束
+            }
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待 AsyncConsoleSink 关闭时被中断", e);
+        }
+        lock.lock();
+        try {
+            throwFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
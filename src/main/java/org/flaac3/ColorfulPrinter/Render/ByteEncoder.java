@@ -0,0 +1,243 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.TextColors;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 直接把 Text 编码成字节的输出端：颜色转义用 TextColors 中预先编码好的字节，文本按 UTF-8 编码（纯 ASCII 走快速路径），
+ * 写满缓冲区后才写到 OutputStream 或 WritableByteChannel。缓冲区可以重复使用，例如：
+ * <pre>{@code
+ * var encoder = new ByteEncoder(channel);
+ * printer.render(encoder, true); //可以连续渲染多个 Printer
+ * encoder.flush();
+ * }</pre>
+ * */
+public class ByteEncoder implements AnsiSink, Flushable {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int MIN_BUFFER_SIZE = 64; //至少要放得下一个完整的转义
+
+    private final OutputStream out; //和 channel 两者只有一个不为 null
+    private final WritableByteChannel channel;
+    private final byte[] buffer;
+    private final ByteBuffer byteBuffer; //包装 buffer，给 channel 写入用
+    private int position = 0; //buffer 中已经写入的字节数
+    private ColorProfile colorProfile = ColorProfile.TRUECOLOR;
+    private char pendingHighSurrogate = 0; //上一段文本结尾落单的高代理，可能和下一段文本开头的低代理组成一个字符
+
+    public ByteEncoder (OutputStream out, int bufferSize) {
+        this(out, null, bufferSize);
+    }
+    public ByteEncoder (OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+    public ByteEncoder (WritableByteChannel channel, int bufferSize) {
+        this(null, channel, bufferSize);
+    }
+    public ByteEncoder (WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+    private ByteEncoder (OutputStream out, WritableByteChannel channel, int bufferSize) {
+        if (out == null && channel == null)
+            throw new IllegalArgumentException("ByteEncoder 的输出目标不能为空");
+        this.out = out;
+        this.channel = channel;
+        this.buffer = new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)];
+        this.byteBuffer = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * 设置终端支持的颜色数量，终端不支持的颜色会换成最接近的颜色输出
+     * */
+    public ByteEncoder setColorProfile (ColorProfile colorProfile) {
+        if (colorProfile == null) throw new IllegalArgumentException("ColorProfile 不能为空");
+        this.colorProfile = colorProfile;
+        return this;
+    }
+
+    @Override
+    public void reset () throws IOException {
+        putPendingSurrogate();
+        put(TextColors.getResetBytes());
+    }
+
+    @Override
+    public void textColor (Color textColor) throws IOException {
+        putPendingSurrogate();
+        put(colorProfile.getTextColorBytes(textColor));
+    }
+
+    @Override
+    public void backGroundColor (Color backGroundColor) throws IOException {
+        putPendingSurrogate();
+        put(colorProfile.getBackGroundColorBytes(backGroundColor));
+    }
+
+    @Override
+    public void sgr (boolean reset, Color textColor, Color backGroundColor) throws IOException {
+        putPendingSurrogate();
+        if (buffer.length - position < MIN_BUFFER_SIZE) drain(); //合并后的转义不会超过 MIN_BUFFER_SIZE
+        buffer[position++] = 0x1b;
+        buffer[position++] = '[';
+        if (reset) {
+            buffer[position++] = '0';
+            if (textColor != null || backGroundColor != null) buffer[position++] = ';';
+        }
+        if (textColor != null) {
+            put(colorProfile.getTextColorParamBytes(textColor));
+            if (backGroundColor != null) buffer[position++] = ';';
+        }
+        if (backGroundColor != null) put(colorProfile.getBackGroundColorParamBytes(backGroundColor));
+        buffer[position++] = 'm';
+    }
+
+    /**
+     * 按 UTF-8 编码文本，连续的 ASCII 字符直接按字节复制。中间没有转义的相邻文本和拼接成一个字符串之后再编码的结果相同，
+     * 包括前一段结尾的高代理和后一段开头的低代理
+     * */
+    @Override
+    public void text (String text) throws IOException {
+        int length = text.length();
+        if (length == 0) return;
+        int i = pendingHighSurrogate == 0 ? 0 : joinPendingSurrogate(text);
+        while (i < length) {
+            //ASCII 快速路径，一次最多写到缓冲区满为止
+            int end = Math.min(length, i + buffer.length - position);
+            char c;
+            while (i < end && (c = text.charAt(i)) < 0x80) {
+                buffer[position++] = (byte) c;
+                i++;
+            }
+            if (i == length) break;
+            if (buffer.length - position < 4) drain(); //一个字符最多占 4 个字节
+            if (text.charAt(i) >= 0x80) i = putNonAscii(text, i);
+        }
+    }
+    /**
+     * 和 text(String) 相同的编码，直接从字符序列（例如列式容器中的字符视图）中读取字符，不先生成字符串
+     * */
+    @Override
+    public void text (CharSequence text) throws IOException {
+        if (text instanceof String str) {
+            text(str);
+            return;
+        }
+        int length = text.length();
+        if (length == 0) return;
+        int i = pendingHighSurrogate == 0 ? 0 : joinPendingSurrogate(text);
+        while (i < length) {
+            int end = Math.min(length, i + buffer.length - position);
+            char c;
+            while (i < end && (c = text.charAt(i)) < 0x80) {
+                buffer[position++] = (byte) c;
+                i++;
+            }
+            if (i == length) break;
+            if (buffer.length - position < 4) drain();
+            if (text.charAt(i) >= 0x80) i = putNonAscii(text, i);
+        }
+    }
+
+    /**
+     * 编码 index 处的一个非 ASCII 字符（代理对算一个），返回下一个要编码的下标
+     * */
+    private int putNonAscii (CharSequence text, int index) {
+        char c = text.charAt(index);
+        if (c < 0x800) {
+            buffer[position++] = (byte) (0xc0 | c >> 6);
+            buffer[position++] = (byte) (0x80 | c & 0x3f);
+        } else if (Character.isSurrogate(c)) {
+            int codePoint = Character.codePointAt(text, index);
+            if (codePoint != c) {
+                putCodePoint(codePoint);
+                return index + 2;
+            }
+            if (Character.isHighSurrogate(c) && index == text.length() - 1) {
+                pendingHighSurrogate = c; //等下一段文本再决定
+            } else {
+                buffer[position++] = '?'; //落单的代理字符，和 String.getBytes 一样替换成 '?'
+            }
+        } else {
+            buffer[position++] = (byte) (0xe0 | c >> 12);
+            buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+            buffer[position++] = (byte) (0x80 | c & 0x3f);
+        }
+        return index + 1;
+    }
+
+    private void putCodePoint (int codePoint) {
+        buffer[position++] = (byte) (0xf0 | codePoint >> 18);
+        buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+        buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+        buffer[position++] = (byte) (0x80 | codePoint & 0x3f);
+    }
+
+    /**
+     * 上一段文本以高代理结尾时，和这一段（不为空）开头的低代理组成一个字符，返回这一段中下一个要编码的下标
+     * */
+    private int joinPendingSurrogate (CharSequence text) throws IOException {
+        if (buffer.length - position < 4) drain();
+        char high = pendingHighSurrogate;
+        pendingHighSurrogate = 0;
+        if (!Character.isLowSurrogate(text.charAt(0))) {
+            buffer[position++] = '?';
+            return 0;
+        }
+        putCodePoint(Character.toCodePoint(high, text.charAt(0)));
+        return 1;
+    }
+    /**
+     * 后面是转义或者不再有文本，落单的高代理只能替换成 '?'
+     * */
+    private void putPendingSurrogate () throws IOException {
+        if (pendingHighSurrogate == 0) return;
+        pendingHighSurrogate = 0;
+        if (position == buffer.length) drain();
+        buffer[position++] = '?';
+    }
+
+    /**
+     * 写入一段预先编码好的字节
+     * */
+    private void put (byte[] bytes) throws IOException {
+        if (buffer.length - position < bytes.length) drain();
+        if (bytes.length > buffer.length) { //比整个缓冲区还大，直接写出去
+            write(ByteBuffer.wrap(bytes), bytes, bytes.length);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * 把缓冲区中的字节写到输出目标，之后缓冲区可以继续使用
+     * */
+    private void drain () throws IOException {
+        if (position == 0) return;
+        byteBuffer.clear().limit(position);
+        write(byteBuffer, buffer, position);
+        position = 0;
+    }
+    private void write (ByteBuffer wrapped, byte[] bytes, int length) throws IOException {
+        if (out != null) {
+            out.write(bytes, 0, length);
+        } else {
+            while (wrapped.hasRemaining()) channel.write(wrapped);
+        }
+    }
+
+    /**
+     * 写出缓冲区中剩余的字节，如果输出目标是 OutputStream 则同时调用它的 flush
+     * */
+    @Override
+    public void flush () throws IOException {
+        putPendingSurrogate();
+        drain();
+        if (out != null) out.flush();
+    }
+}
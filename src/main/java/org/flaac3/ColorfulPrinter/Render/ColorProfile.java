@@ -0,0 +1,203 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.TextColors;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 终端支持的颜色数量，决定输出端怎样输出颜色转义。终端不支持的颜色会换成最接近的颜色，全部通过预先算好的表查出来：<br/>
+ * 真彩色先按每个分量的高 5 位查 32³ 的表得到 256 色调色板中的颜色，256 色再查 256 项的表得到 16 色
+ * */
+public enum ColorProfile {
+    /**
+     * 支持 24 位真彩色（38;2;r;g;b），调色板中的颜色照常输出 38;5;n
+     * */
+    TRUECOLOR,
+    /**
+     * 只支持 256 色调色板（38;5;n），真彩色换成最接近的调色板颜色
+     * */
+    ANSI_256,
+    /**
+     * 只支持基本的 16 色（30 ~ 37、90 ~ 97，背景 40 ~ 47、100 ~ 107），其他颜色都换成最接近的一个
+     * */
+    ANSI_16;
+
+    /**
+     * 按颜色数量输出对应的转义，String 和 byte[] 两种，byte[] 是共享的数组，调用者不能修改其中的内容
+     * */
+    public String getTextColorStr (Color c) {
+        int basic = basic(c);
+        if (basic >= 0) return Basic.TEXT_STR[basic];
+        return TextColors.getTextColorStr(this == ANSI_256 ? toPalette(c) : c);
+    }
+    public String getBackGroundColorStr (Color c) {
+        int basic = basic(c);
+        if (basic >= 0) return Basic.BACKGROUND_STR[basic];
+        return TextColors.getBackGroundColorStr(this == ANSI_256 ? toPalette(c) : c);
+    }
+    public byte[] getTextColorBytes (Color c) {
+        int basic = basic(c);
+        if (basic >= 0) return Basic.TEXT_BYTES[basic];
+        return TextColors.getTextColorBytes(this == ANSI_256 ? toPalette(c) : c);
+    }
+    public byte[] getBackGroundColorBytes (Color c) {
+        int basic = basic(c);
+        if (basic >= 0) return Basic.BACKGROUND_BYTES[basic];
+        return TextColors.getBackGroundColorBytes(this == ANSI_256 ? toPalette(c) : c);
+    }
+
+    /**
+     * SGR 参数形式，用来把多个属性合并成一条转义
+     * */
+    public String getTextColorParam (Color c) {
+        int basic = basic(c);
+        if (basic >= 0) return Basic.TEXT_PARAM[basic];
+        return TextColors.getTextColorParam(this == ANSI_256 ? toPalette(c) : c);
+    }
+    public String getBackGroundColorParam (Color c) {
+        int basic = basic(c);
+        if (basic >= 0) return Basic.BACKGROUND_PARAM[basic];
+        return TextColors.getBackGroundColorParam(this == ANSI_256 ? toPalette(c) : c);
+    }
+    public byte[] getTextColorParamBytes (Color c) {
+        int basic = basic(c);
+        if (basic >= 0) return Basic.TEXT_PARAM_BYTES[basic];
+        return TextColors.getTextColorParamBytes(this == ANSI_256 ? toPalette(c) : c);
+    }
+    public byte[] getBackGroundColorParamBytes (Color c) {
+        int basic = basic(c);
+        if (basic >= 0) return Basic.BACKGROUND_PARAM_BYTES[basic];
+        return TextColors.getBackGroundColorParamBytes(this == ANSI_256 ? toPalette(c) : c);
+    }
+
+    /**
+     * 16 色时换成的基本色编号，不需要换时返回 -1
+     * */
+    private int basic (Color c) {
+        return this == ANSI_16 ? toBasic(c) : -1;
+    }
+
+    /**
+     * 真彩色换成最接近的调色板颜色（查 32³ 的表），其他颜色原样返回
+     * */
+    public static Color toPalette (Color c) {
+        if (!c.isRgb()) return c;
+        return Color.of(Tables.CUBE[(c.red() >> 3) << 10 | (c.green() >> 3) << 5 | c.blue() >> 3] & 0xFF);
+    }
+
+    /**
+     * 换成最接近的基本 16 色的编号（0 ~ 15），既不是调色板颜色也不是真彩色时返回 -1
+     * */
+    public static int toBasic (Color c) {
+        int colorID = toPalette(c).colorID();
+        if (colorID < 0 || colorID >= TextColors.PALETTE_SIZE) return -1;
+        return Tables.TO_BASIC[colorID];
+    }
+
+    /**
+     * 根据环境变量猜测当前终端的颜色数量：COLORTERM 是 truecolor 或 24bit 时是真彩色，TERM 中带 256color 时是 256 色，
+     * TERM 是其他值时是 16 色，都没有设置时（例如 Windows 的终端）按 256 色处理
+     * */
+    public static ColorProfile detect () {
+        var colorTerm = System.getenv("COLORTERM");
+        if (colorTerm != null && (colorTerm.equalsIgnoreCase("truecolor") || colorTerm.equalsIgnoreCase("24bit")))
+            return TRUECOLOR;
+        var term = System.getenv("TERM");
+        if (term == null || term.contains("256color")) return ANSI_256;
+        return ANSI_16;
+    }
+
+    /**
+     * 查色用的表，第一次用到时才计算
+     * */
+    private static final class Tables {
+        /**
+         * xterm 默认的 256 色调色板：0 ~ 15 是基本色，16 ~ 231 是 6×6×6 的颜色立方体，232 ~ 255 是灰阶
+         * */
+        static final int[] PALETTE_RGB = new int[TextColors.PALETTE_SIZE];
+        private static final int[] CUBE_LEVELS = {0, 95, 135, 175, 215, 255};
+        static final byte[] CUBE = new byte[1 << 15]; //按 RGB 各自的高 5 位查最接近的调色板颜色（16 ~ 255）
+        static final byte[] TO_BASIC = new byte[TextColors.PALETTE_SIZE]; //调色板颜色最接近的基本色
+
+        static {
+            int[] basic = {
+                    0x000000, 0xcd0000, 0x00cd00, 0xcdcd00, 0x0000ee, 0xcd00cd, 0x00cdcd, 0xe5e5e5,
+                    0x7f7f7f, 0xff0000, 0x00ff00, 0xffff00, 0x5c5cff, 0xff00ff, 0x00ffff, 0xffffff
+            };
+            System.arraycopy(basic, 0, PALETTE_RGB, 0, 16);
+            for (int i = 16; i < 232; i++) {
+                int n = i - 16;
+                PALETTE_RGB[i] = CUBE_LEVELS[n / 36] << 16 | CUBE_LEVELS[n / 6 % 6] << 8 | CUBE_LEVELS[n % 6];
+            }
+            for (int i = 232; i < 256; i++) {
+                int gray = 8 + (i - 232) * 10;
+                PALETTE_RGB[i] = gray << 16 | gray << 8 | gray;
+            }
+
+            //每一格取中心点，在颜色立方体和灰阶中各找一个最接近的，再取两者中更接近的（基本色在不同终端里差别很大，不参与）
+            for (int r = 0; r < 32; r++) for (int g = 0; g < 32; g++) for (int b = 0; b < 32; b++) {
+                int red = r << 3 | 4, green = g << 3 | 4, blue = b << 3 | 4;
+                int cube = 16 + 36 * cubeLevel(red) + 6 * cubeLevel(green) + cubeLevel(blue);
+                int average = (red + green + blue) / 3;
+                int gray = 232 + Math.min(Math.max((average - 3) / 10, 0), 23);
+                int best = distance(PALETTE_RGB[gray], red, green, blue) < distance(PALETTE_RGB[cube], red, green, blue) ? gray : cube;
+                CUBE[r << 10 | g << 5 | b] = (byte) best;
+            }
+
+            for (int i = 0; i < TextColors.PALETTE_SIZE; i++) {
+                if (i < 16) {
+                    TO_BASIC[i] = (byte) i;
+                    continue;
+                }
+                int rgb = PALETTE_RGB[i], best = 0;
+                for (int k = 1; k < 16; k++) {
+                    if (distance(basic[k], rgb >> 16 & 0xFF, rgb >> 8 & 0xFF, rgb & 0xFF)
+                            < distance(basic[best], rgb >> 16 & 0xFF, rgb >> 8 & 0xFF, rgb & 0xFF)) best = k;
+                }
+                TO_BASIC[i] = (byte) best;
+            }
+        }
+
+        /**
+         * 分量在 CUBE_LEVELS 中最接近的一级
+         * */
+        private static int cubeLevel (int value) {
+            if (value < 48) return 0;
+            if (value < 115) return 1;
+            return (value - 35) / 40;
+        }
+
+        private static int distance (int rgb, int red, int green, int blue) {
+            int dr = (rgb >> 16 & 0xFF) - red, dg = (rgb >> 8 & 0xFF) - green, db = (rgb & 0xFF) - blue;
+            return dr * dr + dg * dg + db * db;
+        }
+    }
+
+    /**
+     * 基本 16 色的转义，下标 0 ~ 7 是普通色，8 ~ 15 是亮色
+     * */
+    private static final class Basic {
+        static final String[] TEXT_PARAM = new String[16];
+        static final String[] BACKGROUND_PARAM = new String[16];
+        static final String[] TEXT_STR = new String[16];
+        static final String[] BACKGROUND_STR = new String[16];
+        static final byte[][] TEXT_PARAM_BYTES = new byte[16][];
+        static final byte[][] BACKGROUND_PARAM_BYTES = new byte[16][];
+        static final byte[][] TEXT_BYTES = new byte[16][];
+        static final byte[][] BACKGROUND_BYTES = new byte[16][];
+
+        static {
+            for (int i = 0; i < 16; i++) {
+                TEXT_PARAM[i] = String.valueOf((i < 8 ? 30 : 90) + (i & 7));
+                BACKGROUND_PARAM[i] = String.valueOf((i < 8 ? 40 : 100) + (i & 7));
+                TEXT_STR[i] = "\u001b[" + TEXT_PARAM[i] + "m";
+                BACKGROUND_STR[i] = "\u001b[" + BACKGROUND_PARAM[i] + "m";
+                TEXT_PARAM_BYTES[i] = TEXT_PARAM[i].getBytes(StandardCharsets.US_ASCII);
+                BACKGROUND_PARAM_BYTES[i] = BACKGROUND_PARAM[i].getBytes(StandardCharsets.US_ASCII);
+                TEXT_BYTES[i] = TEXT_STR[i].getBytes(StandardCharsets.US_ASCII);
+                BACKGROUND_BYTES[i] = BACKGROUND_STR[i].getBytes(StandardCharsets.US_ASCII);
+            }
+        }
+    }
+}
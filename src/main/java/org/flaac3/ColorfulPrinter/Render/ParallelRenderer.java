@@ -0,0 +1,124 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Model.Text;
+import org.flaac3.ColorfulPrinter.Model.TextColors;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 用 ForkJoinPool 并行渲染很多 Text：把列表切成若干段，每段渲染到自己的 StringBuilder，最后按顺序拼接。<br/>
+ * 每个 Text 的输出只和它自己以及前一个 Text 有关（needReset 已经记录在 Text 里，MINIMAL 模式从前一个 Text 的颜色开始），
+ * 所以各段可以独立渲染。Text 数量少于 threshold 时直接顺序渲染
+ * */
+public class ParallelRenderer {
+    public static final int DEFAULT_THRESHOLD = 1 << 14; //少于这么多 Text 时并行的开销比收益大
+    private static final int MIN_CHUNK_SIZE = 1 << 10; //每段至少这么多 Text
+    private static final int CHUNKS_PER_THREAD = 4; //每个线程大约分到几段，方便 work-stealing 平衡负载
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelRenderer () {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+    public ParallelRenderer (ForkJoinPool pool, int threshold) {
+        if (pool == null) throw new IllegalArgumentException("ParallelRenderer 的 pool 参数不能为空");
+        this.pool = pool;
+        this.threshold = Math.max(threshold, 1);
+    }
+
+    public int getThreshold () {
+        return threshold;
+    }
+
+    /**
+     * 返回带颜色的字符串，结果和顺序渲染完全一样
+     * */
+    public String toColorString (List<Text> texts, RenderMode renderMode, boolean resetAtEnd) {
+        return toColorString(texts, renderMode, ColorProfile.TRUECOLOR, resetAtEnd);
+    }
+    public String toColorString (List<Text> texts, RenderMode renderMode, ColorProfile colorProfile, boolean resetAtEnd) {
+        var array = texts.toArray(new Text[0]); //复制一份，渲染时按下标随机访问
+        if (array.length < threshold) {
+            var out = new StringBuilder(array.length * 32 + TextColors.ResetStr.length());
+            renderRange(array, 0, array.length, renderMode, colorProfile, out);
+            return finish(out, resetAtEnd);
+        }
+
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, array.length / (pool.getParallelism() * CHUNKS_PER_THREAD) + 1);
+        var chunks = new StringBuilder[(array.length + chunkSize - 1) / chunkSize];
+        pool.invoke(new RenderTask(array, chunks, chunkSize, 0, chunks.length, renderMode, colorProfile));
+
+        long length = TextColors.ResetStr.length();
+        for (StringBuilder chunk : chunks) length += chunk.length();
+        var out = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        for (StringBuilder chunk : chunks) out.append(chunk);
+        return finish(out, resetAtEnd);
+    }
+
+    private static String finish (StringBuilder out, boolean resetAtEnd) {
+        if (resetAtEnd) out.append(TextColors.ResetStr); //两种模式的结尾都是一个重置转义
+        return out.toString();
+    }
+
+    /**
+     * 渲染 [from, to) 中的 Text，MINIMAL 模式从 from 前一个 Text 的颜色状态开始
+     * */
+    private static void renderRange (Text[] texts, int from, int to, RenderMode renderMode, ColorProfile colorProfile, StringBuilder out) {
+        var sink = new AppendableSink(out).setColorProfile(colorProfile);
+        try {
+            if (renderMode == RenderMode.MINIMAL) {
+                var state = from > 0
+                        ? new SgrState(texts[from - 1].getTextColor(), texts[from - 1].getBackGroundColor())
+                        : new SgrState();
+                for (int i = from; i < to; i++) state.render(texts[i], sink);
+            } else {
+                for (int i = from; i < to; i++) texts[i].render(sink);
+            }
+        } catch (IOException e) { //StringBuilder 不会抛出 IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 渲染第 first 到 last（不含）段，段数多于一个时对半拆分
+     * */
+    private static class RenderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Text[] texts;
+        private final StringBuilder[] chunks;
+        private final int chunkSize, first, last;
+        private final RenderMode renderMode;
+        private final ColorProfile colorProfile;
+
+        RenderTask (Text[] texts, StringBuilder[] chunks, int chunkSize, int first, int last, RenderMode renderMode, ColorProfile colorProfile) {
+            this.texts = texts;
+            this.chunks = chunks;
+            this.chunkSize = chunkSize;
+            this.first = first;
+            this.last = last;
+            this.renderMode = renderMode;
+            this.colorProfile = colorProfile;
+        }
+
+        @Override
+        protected void compute () {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(
+                        new RenderTask(texts, chunks, chunkSize, first, middle, renderMode, colorProfile),
+                        new RenderTask(texts, chunks, chunkSize, middle, last, renderMode, colorProfile)
+                );
+                return;
+            }
+            int from = first * chunkSize, to = Math.min(from + chunkSize, texts.length);
+            var out = new StringBuilder((to - from) * 32);
+            renderRange(texts, from, to, renderMode, colorProfile, out);
+            chunks[first] = out;
+        }
+    }
+}
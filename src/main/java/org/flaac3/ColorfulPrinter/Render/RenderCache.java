@@ -0,0 +1,132 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Model.Text;
+import org.flaac3.ColorfulPrinter.Model.TextColors;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Printer 的渲染缓存：保存所有 Text 渲染后拼接起来的字符串，以及每个 Text 在其中的起始位置。<br/>
+ * 追加的 Text 直接接在末尾渲染；修改过的 Text 只标记为脏，下次取字符串时只重新渲染这些 Text，其余部分原样复制
+ * */
+public class RenderCache {
+    private StringBuilder body = new StringBuilder(); //已缓存的 Text 渲染结果（不含最后的重置）
+    private int[] offsets = new int[16]; //offsets[i] 是第 i 个 Text 在 body 中的起始位置，offsets[count] 是 body 的长度
+    private int count = 0; //已经缓存的 Text 数量，总是缓存列表开头的连续若干个 Text
+    private final BitSet dirty = new BitSet(); //已缓存但是需要重新渲染的 Text
+    private String cachedString = null; //上一次生成的完整字符串
+    private boolean cachedResetAtEnd;
+    private ColorProfile colorProfile = ColorProfile.TRUECOLOR; //body 中的转义按这个颜色数量生成
+
+    /**
+     * 下标 from 到 to（含）的 Text 被修改了，紧挨其后的 Text 的重置状态或者 MINIMAL 模式下的输出也可能随之改变，一起标记
+     * */
+    public void changed (int from, int to) {
+        cachedString = null;
+        if (from >= count) return; //还没有缓存的部分不用标记
+        dirty.set(Math.max(from, 0), Math.min(to + 2, count));
+    }
+
+    /**
+     * 从下标 from 开始插入或者删除了 Text，之后的缓存全部作废
+     * */
+    public void structureChanged (int from) {
+        cachedString = null;
+        if (from >= count) return;
+        count = Math.max(from, 0);
+        body.setLength(offsets[count]);
+        dirty.clear(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 返回带颜色的字符串，没有任何改动时直接返回上一次的结果
+     * */
+    public String toColorString (List<Text> texts, RenderMode renderMode, boolean resetAtEnd) {
+        return toColorString(texts, renderMode, ColorProfile.TRUECOLOR, resetAtEnd);
+    }
+    /**
+     * 换了 colorProfile 时缓存的转义全部作废
+     * */
+    public String toColorString (List<Text> texts, RenderMode renderMode, ColorProfile colorProfile, boolean resetAtEnd) {
+        if (colorProfile != this.colorProfile) {
+            structureChanged(0);
+            this.colorProfile = colorProfile;
+        }
+        if (cachedString != null && cachedResetAtEnd == resetAtEnd && count == texts.size() && dirty.isEmpty())
+            return cachedString;
+        try {
+            sync(texts, renderMode);
+        } catch (IOException e) { //StringBuilder 不会抛出 IOException
+            throw new UncheckedIOException(e);
+        }
+        var out = new StringBuilder(body.length() + TextColors.ResetStr.length()).append(body);
+        if (resetAtEnd) out.append(TextColors.ResetStr);
+        cachedResetAtEnd = resetAtEnd;
+        return cachedString = out.toString();
+    }
+
+    /**
+     * 重新渲染脏的 Text，再把新追加的 Text 渲染到末尾
+     * */
+    private void sync (List<Text> texts, RenderMode renderMode) throws IOException {
+        if (count > texts.size()) structureChanged(texts.size()); //防御：列表被截短但是没有通知
+        if (!dirty.isEmpty()) rebuildDirty(texts, renderMode);
+
+        var sink = new AppendableSink(body).setColorProfile(colorProfile);
+        ensureOffsets(texts.size() + 1);
+        for (int i = count; i < texts.size(); i++) {
+            offsets[i] = body.length();
+            renderOne(texts, i, renderMode, sink);
+        }
+        count = texts.size();
+        offsets[count] = body.length();
+    }
+
+    /**
+     * 一次线性遍历生成新的 body：干净的连续区间整段复制，脏的 Text 重新渲染
+     * */
+    private void rebuildDirty (List<Text> texts, RenderMode renderMode) throws IOException {
+        var newBody = new StringBuilder(body.length() + 64);
+        var sink = new AppendableSink(newBody).setColorProfile(colorProfile);
+        int i = 0;
+        while (i < count) {
+            int nextDirty = dirty.nextSetBit(i);
+            int cleanEnd = nextDirty < 0 || nextDirty > count ? count : nextDirty;
+            if (cleanEnd > i) { //复制 [i, cleanEnd) 这一段干净的 Text，并且平移它们的起始位置
+                int shift = newBody.length() - offsets[i];
+                newBody.append(body, offsets[i], offsets[cleanEnd]);
+                if (shift != 0) for (int j = i; j < cleanEnd; j++) offsets[j] += shift;
+                i = cleanEnd;
+            }
+            if (i < count) {
+                offsets[i] = newBody.length();
+                renderOne(texts, i, renderMode, sink);
+                i++;
+            }
+        }
+        offsets[count] = newBody.length();
+        body = newBody;
+        dirty.clear();
+    }
+
+    /**
+     * 渲染单个 Text，MINIMAL 模式需要从上一个 Text 的颜色状态开始
+     * */
+    private static void renderOne (List<Text> texts, int i, RenderMode renderMode, AnsiSink sink) throws IOException {
+        var text = texts.get(i);
+        if (renderMode == RenderMode.MINIMAL) {
+            var state = i > 0
+                    ? new SgrState(texts.get(i - 1).getTextColor(), texts.get(i - 1).getBackGroundColor())
+                    : new SgrState();
+            state.render(text, sink);
+        } else text.render(sink);
+    }
+
+    private void ensureOffsets (int size) {
+        if (offsets.length < size) offsets = Arrays.copyOf(offsets, Math.max(size, offsets.length * 2));
+    }
+}
@@ -0,0 +1,15 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+/**
+ * Printer 渲染颜色转义的方式
+ * */
+public enum RenderMode {
+    /**
+     * 每个 Text 都独立输出自己的背景颜色和文本颜色转义，需要时先完整重置，和之前的输出完全一致
+     * */
+    PLAIN,
+    /**
+     * 记录终端当前的颜色状态，只输出和上一个 Text 相比发生变化的属性，并且合并成一条转义
+     * */
+    MINIMAL
+}
@@ -0,0 +1,53 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.Text;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * 记录终端当前的 SGR 状态（文本颜色和背景颜色，null 表示终端默认颜色），渲染 Text 时只输出发生变化的属性
+ * */
+public class SgrState {
+    private Color textColor = null;
+    private Color backGroundColor = null;
+
+    public SgrState () {}
+
+    /**
+     * 从指定的颜色状态开始渲染，例如接着某个 Text 之后继续输出
+     * */
+    public SgrState (Color textColor, Color backGroundColor) {
+        this.textColor = textColor;
+        this.backGroundColor = backGroundColor;
+    }
+
+    /**
+     * 输出从当前状态切换到 text 的颜色所需的最少转义，然后输出文本
+     * */
+    public void render (Text text, AnsiSink sink) throws IOException {
+        var newTextColor = text.getTextColor();
+        var newBackGroundColor = text.getBackGroundColor();
+        //只有某个颜色要回到终端默认时才需要重置，重置之后两个颜色都要重新设置
+        var reset = newTextColor == null && textColor != null
+                || newBackGroundColor == null && backGroundColor != null;
+        if (reset) {
+            textColor = null; backGroundColor = null;
+        }
+        var setTextColor = Objects.equals(newTextColor, textColor) ? null : newTextColor;
+        var setBackGroundColor = Objects.equals(newBackGroundColor, backGroundColor) ? null : newBackGroundColor;
+        if (reset || setTextColor != null || setBackGroundColor != null)
+            sink.sgr(reset, setTextColor, setBackGroundColor);
+        textColor = newTextColor; backGroundColor = newBackGroundColor;
+        text.renderText(sink);
+    }
+
+    /**
+     * 输出重置转义并且回到终端默认状态
+     * */
+    public void reset (AnsiSink sink) throws IOException {
+        sink.reset();
+        textColor = null; backGroundColor = null;
+    }
+}
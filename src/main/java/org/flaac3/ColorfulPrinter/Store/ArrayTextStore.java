@@ -0,0 +1,47 @@
+package org.flaac3.ColorfulPrinter.Store;
+
+import org.flaac3.ColorfulPrinter.Model.Text;
+
+import java.util.ArrayList;
+
+/**
+ * 默认的容器，直接使用 ArrayList，批量插入和删除都只做一次线性的合并
+ * */
+public class ArrayTextStore extends ArrayList<Text> implements TextStore {
+    private static final long serialVersionUID = 1L;
+
+    public ArrayTextStore () {}
+    public ArrayTextStore (int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    @Override
+    public void insertAll (int[] positions, Text[] texts) {
+        if (positions.length == 0) return;
+        if (positions.length == 1) {
+            add(positions[0], texts[0]);
+            return;
+        }
+        var old = toArray(new Text[0]);
+        clear();
+        ensureCapacity(old.length + texts.length);
+        int from = 0;
+        for (int k = 0; k < positions.length; k++) { //把原来的 Text 和新的 Text 按位置合并
+            for (int i = from; i < positions[k]; i++) add(old[i]);
+            add(texts[k]);
+            from = positions[k];
+        }
+        for (int i = from; i < old.length; i++) add(old[i]);
+    }
+
+    @Override
+    public void removeRanges (int[] froms, int[] tos) {
+        if (froms.length == 0) return;
+        int write = froms[0]; //把保留下来的 Text 依次往前移动
+        for (int k = 0; k < froms.length; k++) {
+            int end = k + 1 < froms.length ? froms[k + 1] : size();
+            for (int read = tos[k]; read < end; read++) set(write++, get(read));
+        }
+        removeRange(write, size());
+    }
+}
@@ -0,0 +1,353 @@
+package org.flaac3.ColorfulPrinter.Store;
+
+import org.flaac3.ColorfulPrinter.Model.Text;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 分块存放 Text 的容器（简单的 rope）：每一块是一个最多 CHUNK_CAPACITY 个元素的数组，另外记录每一块的起始下标，<br/>
+ * 查找下标时二分查找块，插入和删除只移动块内的元素，适合在很多位置插入、删除的大 Printer。<br/>
+ * 批量插入、删除时每一块只处理一次，所有块的起始下标也只在最后重新计算一次
+ * */
+public class ChunkedTextStore extends AbstractList<Text> implements TextStore, RandomAccess {
+    private static final int CHUNK_CAPACITY = 512; //每一块最多的元素数量
+    private Text[][] chunks = new Text[4][];
+    private int[] chunkSizes = new int[4];
+    private int[] chunkStarts = new int[4]; //每一块第一个元素的下标，只有 0 ~ validStarts - 1 是正确的
+    private int chunkCount = 0;
+    private int validStarts = 0;
+    private int size = 0;
+    private int lastChunk = 0; //上一次查到的块，按顺序访问时大多还在这一块里
+
+    public ChunkedTextStore () {}
+
+    @Override
+    public int size () {
+        return size;
+    }
+
+    @Override
+    public Text get (int index) {
+        Objects.checkIndex(index, size);
+        int c = chunkOf(index);
+        return chunks[c][index - chunkStarts[c]];
+    }
+
+    @Override
+    public Text set (int index, Text text) {
+        Objects.checkIndex(index, size);
+        int c = chunkOf(index);
+        var old = chunks[c][index - chunkStarts[c]];
+        chunks[c][index - chunkStarts[c]] = text;
+        return old;
+    }
+
+    @Override
+    public boolean add (Text text) {
+        int last = chunkCount - 1;
+        if (last < 0 || chunkSizes[last] == CHUNK_CAPACITY) { //最后一块满了，新建一块（有 clear 留下的空块就直接用）
+            var spare = chunkCount < chunks.length ? chunks[chunkCount] : null;
+            insertChunk(chunkCount, spare != null ? spare : new Text[CHUNK_CAPACITY], 0);
+            last = chunkCount - 1;
+        }
+        chunks[last][chunkSizes[last]++] = text;
+        size++; modCount++;
+        return true;
+    }
+
+    @Override
+    public void add (int index, Text text) {
+        if (index == size) {
+            add(text);
+            return;
+        }
+        Objects.checkIndex(index, size);
+        int c = chunkOf(index);
+        if (chunkSizes[c] == CHUNK_CAPACITY) { //这一块满了，先对半拆分
+            splitChunk(c);
+            c = chunkOf(index);
+        }
+        int offset = index - chunkStarts[c];
+        var chunk = chunks[c];
+        System.arraycopy(chunk, offset, chunk, offset + 1, chunkSizes[c] - offset);
+        chunk[offset] = text;
+        chunkSizes[c]++;
+        invalidateFrom(c + 1);
+        size++; modCount++;
+    }
+
+    @Override
+    public Text remove (int index) {
+        Objects.checkIndex(index, size);
+        int c = chunkOf(index);
+        int offset = index - chunkStarts[c];
+        var chunk = chunks[c];
+        var old = chunk[offset];
+        System.arraycopy(chunk, offset + 1, chunk, offset, chunkSizes[c] - offset - 1);
+        chunk[--chunkSizes[c]] = null;
+        if (chunkSizes[c] == 0) removeChunks(c, c + 1);
+        else invalidateFrom(c + 1);
+        size--; modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear () {
+        for (int c = 0; c < chunkCount; c++) Arrays.fill(chunks[c], 0, chunkSizes[c], null); //保留块数组，之后 add 时复用
+        chunkCount = 0; validStarts = 0; size = 0; modCount++;
+    }
+
+    /**
+     * subList(from, to).clear() 会调用这个方法，只处理两端所在的块，中间的块整块丢弃
+     * */
+    @Override
+    protected void removeRange (int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) return;
+        int first = chunkOf(fromIndex);
+        int last = chunkOf(toIndex - 1);
+        int headKeep = fromIndex - chunkStarts[first]; //第一块保留的前半部分
+        int tailFrom = toIndex - chunkStarts[last]; //最后一块保留的后半部分从这里开始
+        if (first == last) {
+            var chunk = chunks[first];
+            System.arraycopy(chunk, tailFrom, chunk, headKeep, chunkSizes[first] - tailFrom);
+            int newSize = chunkSizes[first] - (tailFrom - headKeep);
+            Arrays.fill(chunk, newSize, chunkSizes[first], null);
+            chunkSizes[first] = newSize;
+            if (newSize == 0) removeChunks(first, first + 1);
+            else invalidateFrom(first + 1);
+        } else {
+            var lastChunk = chunks[last];
+            int lastKeep = chunkSizes[last] - tailFrom;
+            System.arraycopy(lastChunk, tailFrom, lastChunk, 0, lastKeep);
+            Arrays.fill(lastChunk, lastKeep, chunkSizes[last], null);
+            chunkSizes[last] = lastKeep;
+            Arrays.fill(chunks[first], headKeep, chunkSizes[first], null);
+            chunkSizes[first] = headKeep;
+            //丢弃中间的块，以及变空的两端
+            int removeFrom = headKeep == 0 ? first : first + 1;
+            int removeTo = lastKeep == 0 ? last + 1 : last;
+            if (removeFrom < removeTo) removeChunks(removeFrom, removeTo);
+            else invalidateFrom(first + 1);
+        }
+        size -= toIndex - fromIndex; modCount++;
+    }
+
+    /**
+     * 按块依次合并：没有插入的块原样保留；放得下的块从后往前就地合并，只移动第一个插入点之后的元素；
+     * 放不下的块平均拆成几块。最后整体替换块的列表，一次性重新计算起始下标
+     * */
+    @Override
+    public void insertAll (int[] positions, Text[] texts) {
+        if (positions.length == 0) return;
+        for (int position : positions) if (position < 0 || position > size) throw new IndexOutOfBoundsException(position);
+        if (chunkCount == 0) { //所有位置都是 0
+            for (Text text : texts) add(text);
+            return;
+        }
+        chunkOf(0); //保证所有块的起始下标都是正确的
+
+        var newChunks = new Text[chunkCount + (size + positions.length) / CHUNK_CAPACITY + 1][];
+        var newSizes = new int[newChunks.length];
+        Text[] scratch = null; //拆分时暂存原来的块
+        int count = 0, k = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            var chunk = chunks[c];
+            int n = chunkSizes[c], start = chunkStarts[c];
+            int end = c + 1 < chunkCount ? chunkStarts[c + 1] : size + 1; //最后一块还负责追加到末尾的位置
+            int first = k;
+            while (k < positions.length && positions[k] < end) k++;
+            int newSize = n + k - first;
+            if (k == first) {
+                newChunks[count] = chunk;
+                newSizes[count++] = n;
+            } else if (newSize <= CHUNK_CAPACITY) {
+                int read = n, write = newSize;
+                for (int j = k - 1; j >= first; j--) {
+                    int offset = positions[j] - start;
+                    System.arraycopy(chunk, offset, chunk, offset + write - read, read - offset);
+                    write -= read - offset;
+                    read = offset;
+                    chunk[--write] = texts[j];
+                }
+                newChunks[count] = chunk;
+                newSizes[count++] = newSize;
+            } else {
+                if (scratch == null) scratch = new Text[CHUNK_CAPACITY];
+                System.arraycopy(chunk, 0, scratch, 0, n);
+                int pieces = (newSize + CHUNK_CAPACITY - 1) / CHUNK_CAPACITY;
+                int read = 0, j = first;
+                for (int piece = 0; piece < pieces; piece++) {
+                    int pieceSize = (int) ((long) newSize * (piece + 1) / pieces - (long) newSize * piece / pieces);
+                    var target = piece == 0 ? chunk : new Text[CHUNK_CAPACITY]; //第一块继续使用原来的数组
+                    for (int w = 0; w < pieceSize; w++) {
+                        target[w] = j < k && positions[j] - start == read ? texts[j++] : scratch[read++];
+                    }
+                    newChunks[count] = target;
+                    newSizes[count++] = pieceSize;
+                }
+                int firstSize = newSizes[count - pieces];
+                if (firstSize < n) Arrays.fill(chunk, firstSize, n, null);
+            }
+        }
+
+        chunks = newChunks;
+        chunkSizes = newSizes;
+        if (chunkStarts.length < newChunks.length) chunkStarts = new int[newChunks.length];
+        chunkCount = count;
+        validStarts = 0;
+        size += positions.length; modCount++;
+    }
+
+    /**
+     * 按块依次删除：和区间没有交集的块原样保留，其余的块就地把保留的元素往前移动，变空的块直接丢弃，
+     * 剩下很少元素的块并入前一块，最后一次性重新计算起始下标
+     * */
+    @Override
+    public void removeRanges (int[] froms, int[] tos) {
+        if (froms.length == 0) return;
+        for (int k = 0; k < froms.length; k++) Objects.checkFromToIndex(froms[k], tos[k], size);
+        int count = 0, k = 0, start = 0, removed = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            var chunk = chunks[c];
+            int n = chunkSizes[c], end = start + n;
+            while (k < froms.length && tos[k] <= start) k++;
+            int kept = n;
+            if (k < froms.length && froms[k] < end) {
+                kept = 0;
+                int read = 0;
+                while (k < froms.length && froms[k] < end) {
+                    int from = Math.max(froms[k] - start, 0);
+                    if (from > read) {
+                        System.arraycopy(chunk, read, chunk, kept, from - read);
+                        kept += from - read;
+                    }
+                    read = Math.max(read, Math.min(tos[k] - start, n));
+                    if (tos[k] > end) break; //这个区间延续到下一块
+                    k++;
+                }
+                if (read < n) {
+                    System.arraycopy(chunk, read, chunk, kept, n - read);
+                    kept += n - read;
+                }
+                Arrays.fill(chunk, kept, n, null);
+            }
+            start = end;
+            removed += n - kept;
+            if (kept == 0) continue;
+            if (kept < n && kept < CHUNK_CAPACITY / 4 && count > 0 && chunkSizes[count - 1] + kept <= CHUNK_CAPACITY) {
+                System.arraycopy(chunk, 0, chunks[count - 1], chunkSizes[count - 1], kept); //并入前一块
+                Arrays.fill(chunk, 0, kept, null);
+                chunkSizes[count - 1] += kept;
+                continue;
+            }
+            chunks[count] = chunk;
+            chunkSizes[count++] = kept;
+        }
+        Arrays.fill(chunks, count, chunkCount, null);
+        chunkCount = count;
+        validStarts = 0;
+        size -= removed; modCount++;
+    }
+
+    /**
+     * 按块顺序遍历，不需要每个元素都查找一次块
+     * */
+    @Override
+    public Iterator<Text> iterator () {
+        return new Iterator<>() {
+            private int chunk = 0;
+            private int offset = 0;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext () {
+                while (chunk < chunkCount && offset >= chunkSizes[chunk]) {
+                    chunk++; offset = 0;
+                }
+                return chunk < chunkCount;
+            }
+
+            @Override
+            public Text next () {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (!hasNext()) throw new NoSuchElementException();
+                return chunks[chunk][offset++];
+            }
+        };
+    }
+
+    @Override
+    public void forEach (Consumer<? super Text> action) {
+        for (int c = 0; c < chunkCount; c++) {
+            var chunk = chunks[c];
+            for (int i = 0, n = chunkSizes[c]; i < n; i++) action.accept(chunk[i]);
+        }
+    }
+
+    /**
+     * 二分查找下标 index 所在的块
+     * */
+    private int chunkOf (int index) {
+        if (validStarts < chunkCount) { //从第一个失效的块开始重新计算起始下标
+            int start = validStarts == 0 ? 0 : chunkStarts[validStarts - 1] + chunkSizes[validStarts - 1];
+            for (int c = validStarts; c < chunkCount; c++) {
+                chunkStarts[c] = start;
+                start += chunkSizes[c];
+            }
+            validStarts = chunkCount;
+        }
+        int last = lastChunk;
+        if (last < chunkCount && chunkStarts[last] <= index && index - chunkStarts[last] < chunkSizes[last]) return last;
+        int low = 0, high = chunkCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chunkStarts[middle] <= index) low = middle; else high = middle - 1;
+        }
+        return lastChunk = low;
+    }
+
+    private void invalidateFrom (int c) {
+        if (c < validStarts) validStarts = c;
+    }
+
+    /**
+     * 把第 c 块对半拆成两块
+     * */
+    private void splitChunk (int c) {
+        var chunk = chunks[c];
+        int half = chunkSizes[c] >>> 1;
+        var right = new Text[CHUNK_CAPACITY];
+        System.arraycopy(chunk, half, right, 0, chunkSizes[c] - half);
+        Arrays.fill(chunk, half, chunkSizes[c], null);
+        insertChunk(c + 1, right, chunkSizes[c] - half);
+        chunkSizes[c] = half;
+        invalidateFrom(c + 1);
+    }
+
+    private void insertChunk (int c, Text[] chunk, int chunkSize) {
+        if (chunkCount == chunks.length) {
+            int capacity = chunks.length * 2;
+            chunks = Arrays.copyOf(chunks, capacity);
+            chunkSizes = Arrays.copyOf(chunkSizes, capacity);
+            chunkStarts = Arrays.copyOf(chunkStarts, capacity);
+        }
+        System.arraycopy(chunks, c, chunks, c + 1, chunkCount - c);
+        System.arraycopy(chunkSizes, c, chunkSizes, c + 1, chunkCount - c);
+        chunks[c] = chunk;
+        chunkSizes[c] = chunkSize;
+        chunkCount++;
+        invalidateFrom(c);
+    }
+
+    /**
+     * 移除第 from（含）到 to（不含）块
+     * */
+    private void removeChunks (int from, int to) {
+        System.arraycopy(chunks, to, chunks, from, chunkCount - to);
+        System.arraycopy(chunkSizes, to, chunkSizes, from, chunkCount - to);
+        Arrays.fill(chunks, chunkCount - (to - from), chunkCount, null);
+        chunkCount -= to - from;
+        invalidateFrom(from);
+    }
+}
@@ -0,0 +1,320 @@
+package org.flaac3.ColorfulPrinter.Store;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.Text;
+
+import java.util.*;
+
+/**
+ * 按列存放 Text 的容器：每个 Text 在四个 int[] 中各占一项，分别是压缩后的颜色（含 needReset，见 Text.getPackedColors）、
+ * 模板编号、文本在 arena 中的起点和长度，所有文本都放在同一个 char[]（arena）里。
+ * 调色板以外的颜色另外存在两个 Color[] 中，第一次用到这样的颜色时才创建，之后每个 Text 多占两个引用。
+ * 没有每个 Text 的对象和 String，适合存放几十万、上百万个 Text 的大报表；数组按 1.5 倍扩容、arena 中删掉的文本要等整理时才回收，
+ * 所以实际占用会比这些数组本身的大小多出一些 <br/>
+ * 注意：get 每次都重新生成一个 Text，修改之后要 set 写回（Printer 会自动处理）；延迟格式化的 Text 放进来时就会格式化
+ * */
+public class ColumnarTextStore extends AbstractList<Text> implements TextStore, RandomAccess {
+    private static final int MIN_COMPACT_GARBAGE = 1 << 16; //废弃的字符至少有这么多，并且超过一半时才整理 arena
+
+    private int size = 0;
+    private int[] colors; //Text.getPackedColors
+    private int[] templateIndexes;
+    private int[] offsets; //文本在 arena 中的起点
+    private int[] lengths; //文本长度，-1 表示文本是 null
+    private Color[] wideTextColors = null; //调色板以外的文本颜色，没有这样的颜色时是 null
+    private Color[] wideBackGroundColors = null;
+    private char[] arena;
+    private int arenaSize = 0; //arena 中已经使用的长度
+    private int garbage = 0; //arena 中已经没有 Text 使用的字符数
+
+    public ColumnarTextStore () {
+        this(16);
+    }
+    public ColumnarTextStore (int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        colors = new int[capacity];
+        templateIndexes = new int[capacity];
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        arena = new char[capacity * 8];
+    }
+
+    @Override
+    public int size () {
+        return size;
+    }
+
+    @Override
+    public boolean returnsStoredTexts () {
+        return false;
+    }
+
+    @Override
+    public Text get (int index) {
+        Objects.checkIndex(index, size);
+        return Text.ofPacked(
+                colors[index],
+                wideTextColors == null ? null : wideTextColors[index],
+                wideBackGroundColors == null ? null : wideBackGroundColors[index],
+                lengths[index] < 0 ? null : new String(arena, offsets[index], lengths[index]),
+                templateIndexes[index]
+        );
+    }
+
+    @Override
+    public Text set (int index, Text text) {
+        var old = get(index);
+        update(index, text);
+        return old;
+    }
+
+    @Override
+    public void update (int index, Text text) {
+        Objects.checkIndex(index, size);
+        write(index, text, true);
+        compactIfNeeded();
+    }
+
+    @Override
+    public boolean add (Text text) {
+        ensureCapacity(size + 1);
+        write(size++, text, false);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add (int index, Text text) {
+        insertAll(new int[]{index}, new Text[]{text});
+    }
+
+    @Override
+    public Text remove (int index) {
+        var old = get(index);
+        removeRanges(new int[]{index}, new int[]{index + 1});
+        return old;
+    }
+
+    @Override
+    public void clear () {
+        if (wideTextColors != null) {
+            Arrays.fill(wideTextColors, 0, size, null);
+            Arrays.fill(wideBackGroundColors, 0, size, null);
+        }
+        size = 0; arenaSize = 0; garbage = 0; modCount++;
+    }
+
+    /**
+     * subList(from, to).clear() 会调用这个方法
+     * */
+    @Override
+    protected void removeRange (int fromIndex, int toIndex) {
+        if (fromIndex < toIndex) removeRanges(new int[]{fromIndex}, new int[]{toIndex});
+    }
+
+    /**
+     * 从后往前一次性把每一列移动到位，再写入新的 Text
+     * */
+    @Override
+    public void insertAll (int[] positions, Text[] texts) {
+        if (positions.length == 0) return;
+        for (int position : positions) if (position < 0 || position > size) throw new IndexOutOfBoundsException(position);
+        ensureCapacity(size + positions.length);
+        int end = size; //还没有移动的部分是 [0, end)
+        for (int k = positions.length - 1; k >= 0; k--) {
+            int from = positions[k];
+            moveColumns(from, from + k + 1, end - from); //前面还有 k + 1 个插入
+            write(from + k, texts[k], false);
+            end = from;
+        }
+        size += positions.length; modCount++;
+    }
+
+    /**
+     * 一次线性的移动删除所有区间，删除的文本留在 arena 中，之后整理
+     * */
+    @Override
+    public void removeRanges (int[] froms, int[] tos) {
+        if (froms.length == 0) return;
+        for (int k = 0; k < froms.length; k++) Objects.checkFromToIndex(froms[k], tos[k], size);
+        int write = froms[0]; //把保留下来的 Text 依次往前移动
+        for (int k = 0; k < froms.length; k++) {
+            for (int i = froms[k]; i < tos[k]; i++) if (lengths[i] > 0) garbage += lengths[i];
+            int end = k + 1 < froms.length ? froms[k + 1] : size;
+            moveColumns(tos[k], write, end - tos[k]);
+            write += end - tos[k];
+        }
+        if (wideTextColors != null) {
+            Arrays.fill(wideTextColors, write, size, null);
+            Arrays.fill(wideBackGroundColors, write, size, null);
+        }
+        size = write; modCount++;
+        compactIfNeeded();
+    }
+
+    /**
+     * 渲染用的只读遍历：反复使用同一个 Text，文本是 arena 中的字符视图，整个遍历不生成字符串
+     * */
+    @Override
+    public Iterator<Text> readOnlyIterator () {
+        return new Iterator<>() {
+            private final Text text = Text.ofPacked(0, null, null, null, -1);
+            private final Slice slice = new Slice();
+            private final int expectedModCount = modCount;
+            private int index = 0;
+
+            @Override
+            public boolean hasNext () {
+                return index < size;
+            }
+
+            @Override
+            public Text next () {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (index >= size) throw new NoSuchElementException();
+                var wideTextColor = wideTextColors == null ? null : wideTextColors[index];
+                var wideBackGroundColor = wideBackGroundColors == null ? null : wideBackGroundColors[index];
+                if (lengths[index] < 0) {
+                    text.load(colors[index], wideTextColor, wideBackGroundColor, null, templateIndexes[index]);
+                } else {
+                    slice.offset = offsets[index];
+                    slice.length = lengths[index];
+                    text.loadView(colors[index], wideTextColor, wideBackGroundColor, slice, templateIndexes[index]);
+                }
+                index++;
+                return text;
+            }
+        };
+    }
+
+    /**
+     * arena 中一段文本的视图
+     * */
+    private final class Slice implements CharSequence {
+        int offset, length;
+
+        @Override
+        public int length () {
+            return length;
+        }
+
+        @Override
+        public char charAt (int index) {
+            Objects.checkIndex(index, length);
+            return arena[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence (int start, int end) {
+            Objects.checkFromToIndex(start, end, length);
+            return new String(arena, offset + start, end - start);
+        }
+
+        @Override
+        public String toString () {
+            return new String(arena, offset, length);
+        }
+    }
+
+    /**
+     * 把 text 写到第 index 行，replace 为 true 表示覆盖原来的 Text：新文本不比原来长时直接写在原来的位置
+     * */
+    private void write (int index, Text text, boolean replace) {
+        int packed = text.getPackedColors();
+        colors[index] = packed;
+        templateIndexes[index] = text.templateIndex;
+        if (Text.hasWideColor(packed)) {
+            if (wideTextColors == null) {
+                wideTextColors = new Color[colors.length];
+                wideBackGroundColors = new Color[colors.length];
+            }
+            wideTextColors[index] = text.getTextColor();
+            wideBackGroundColors[index] = text.getBackGroundColor();
+        } else if (wideTextColors != null) {
+            wideTextColors[index] = null;
+            wideBackGroundColors[index] = null;
+        }
+
+        var str = text.getTextStr(); //延迟格式化的 Text 在这里格式化
+        int oldLength = replace ? lengths[index] : -1;
+        if (str == null) {
+            if (oldLength > 0) garbage += oldLength;
+            lengths[index] = -1;
+            offsets[index] = 0;
+            return;
+        }
+        int length = str.length();
+        if (length <= oldLength) { //原来的位置放得下
+            str.getChars(0, length, arena, offsets[index]);
+            garbage += oldLength - length;
+        } else {
+            if (oldLength > 0) garbage += oldLength;
+            ensureArena(length);
+            str.getChars(0, length, arena, arenaSize);
+            offsets[index] = arenaSize;
+            arenaSize += length;
+        }
+        lengths[index] = length;
+    }
+
+    /**
+     * 把 [from, from + count) 行的每一列移动到 to 开始的位置
+     * */
+    private void moveColumns (int from, int to, int count) {
+        if (count <= 0 || from == to) return;
+        System.arraycopy(colors, from, colors, to, count);
+        System.arraycopy(templateIndexes, from, templateIndexes, to, count);
+        System.arraycopy(offsets, from, offsets, to, count);
+        System.arraycopy(lengths, from, lengths, to, count);
+        if (wideTextColors != null) {
+            System.arraycopy(wideTextColors, from, wideTextColors, to, count);
+            System.arraycopy(wideBackGroundColors, from, wideBackGroundColors, to, count);
+        }
+    }
+
+    private void ensureCapacity (int capacity) {
+        if (capacity <= colors.length) return;
+        int newCapacity = Math.min(Math.max(capacity, colors.length + (colors.length >> 1)), Integer.MAX_VALUE - 8);
+        colors = Arrays.copyOf(colors, newCapacity);
+        templateIndexes = Arrays.copyOf(templateIndexes, newCapacity);
+        offsets = Arrays.copyOf(offsets, newCapacity);
+        lengths = Arrays.copyOf(lengths, newCapacity);
+        if (wideTextColors != null) {
+            wideTextColors = Arrays.copyOf(wideTextColors, newCapacity);
+            wideBackGroundColors = Arrays.copyOf(wideBackGroundColors, newCapacity);
+        }
+    }
+
+    /**
+     * 保证 arena 还能再放下 extra 个字符，废弃的字符足够多时先整理
+     * */
+    private void ensureArena (int extra) {
+        if ((long) arenaSize + extra <= arena.length) return;
+        compactIfNeeded();
+        long needed = (long) arenaSize + extra;
+        if (needed <= arena.length) return;
+        if (needed > Integer.MAX_VALUE - 8) throw new OutOfMemoryError("ColumnarTextStore 中的文本总长度超出了数组的上限");
+        arena = Arrays.copyOf(arena, (int) Math.min(Math.max(needed, arena.length + ((long) arena.length >> 1)), Integer.MAX_VALUE - 8));
+    }
+
+    /**
+     * 废弃的字符超过一半时，按行的顺序把还在使用的文本复制到新的 arena 中
+     * */
+    private void compactIfNeeded () {
+        if (garbage < MIN_COMPACT_GARBAGE || garbage <= arenaSize >>> 1) return;
+        var compacted = new char[Math.max(arenaSize - garbage, 16) + (arenaSize - garbage >> 1)];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            if (lengths[i] <= 0) {
+                offsets[i] = 0;
+                continue;
+            }
+            System.arraycopy(arena, offsets[i], compacted, position, lengths[i]);
+            offsets[i] = position;
+            position += lengths[i];
+        }
+        arena = compacted;
+        arenaSize = position;
+        garbage = 0;
+    }
+}
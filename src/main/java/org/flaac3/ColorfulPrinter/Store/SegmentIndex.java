@@ -0,0 +1,116 @@
+package org.flaac3.ColorfulPrinter.Store;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.Text;
+import org.flaac3.ColorfulPrinter.Utils.IntBitmap;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Printer 的查找索引：文本颜色、背景颜色、模板编号以及文本中每个连续三字符（trigram）对应的 Text 下标集合。<br/>
+ * 和渲染缓存一样增量维护：追加的 Text 在下次查找时补上，修改过的 Text 只标记一下，下次查找时重新加入索引。<br/>
+ * 索引只用来缩小范围，旧的下标不会马上移除，所以查到的只是候选，调用方还要逐个确认
+ * */
+public class SegmentIndex {
+    public static final int GRAM = 3; //查找的字符串至少要有这么长才能用索引
+
+    private final HashMap<Color, IntBitmap> textColors = new HashMap<>();
+    private final HashMap<Color, IntBitmap> backGroundColors = new HashMap<>();
+    private final HashMap<Integer, IntBitmap> templateIndexes = new HashMap<>();
+    private final HashMap<Long, IntBitmap> trigrams = new HashMap<>(); //三个字符拼成一个 long
+    private int count = 0; //已经加入索引的 Text 数量，总是列表开头的连续若干个 Text
+    private final BitSet dirty = new BitSet(); //已加入索引但是被修改过，需要重新加入的 Text
+    private long stale = 0; //重新加入索引的次数，旧的下标越来越多时整体重建
+
+    /**
+     * 下标 from 到 to（含）的 Text 被修改了
+     * */
+    public void changed (int from, int to) {
+        if (from >= count) return; //还没有加入索引的部分不用标记
+        dirty.set(Math.max(from, 0), Math.min(to + 1, count));
+    }
+
+    /**
+     * 从下标 from 开始插入或者删除了 Text，之后的 Text 都要重新加入索引
+     * */
+    public void structureChanged (int from) {
+        if (from >= count) return;
+        from = Math.max(from, 0);
+        stale += count - from;
+        count = from;
+        dirty.clear(count, Integer.MAX_VALUE);
+        if (count == 0) clear();
+    }
+
+    private void clear () {
+        textColors.clear();
+        backGroundColors.clear();
+        templateIndexes.clear();
+        trigrams.clear();
+        count = 0;
+        dirty.clear();
+        stale = 0;
+    }
+
+    /**
+     * 把修改过的 Text 和新追加的 Text 加入索引
+     * */
+    private void sync (List<Text> texts) {
+        if (count > texts.size()) structureChanged(texts.size()); //防御：列表被截短但是没有通知
+        stale += dirty.cardinality();
+        if (stale > Math.max(texts.size(), 1024)) clear(); //旧的下标太多，不如重建
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) add(i, texts.get(i));
+        dirty.clear();
+        for (int i = count; i < texts.size(); i++) add(i, texts.get(i));
+        count = texts.size();
+    }
+
+    private void add (int i, Text text) {
+        textColors.computeIfAbsent(text.getTextColor(), key -> new IntBitmap()).add(i);
+        backGroundColors.computeIfAbsent(text.getBackGroundColor(), key -> new IntBitmap()).add(i);
+        templateIndexes.computeIfAbsent(text.templateIndex, key -> new IntBitmap()).add(i);
+        var str = text.getTextStr();
+        if (str == null) return;
+        for (int k = 0; k + GRAM <= str.length(); k++) {
+            trigrams.computeIfAbsent(trigram(str, k), key -> new IntBitmap()).add(i);
+        }
+    }
+
+    private static long trigram (String str, int k) {
+        return (long) str.charAt(k) << 32 | (long) str.charAt(k + 1) << 16 | str.charAt(k + 2);
+    }
+
+    /**
+     * 文本中可能包含 literal 的 Text 下标，literal 比 GRAM 短时无法使用索引，返回 null
+     * */
+    public IntBitmap candidatesContaining (List<Text> texts, String literal) {
+        if (literal.length() < GRAM) return null;
+        sync(texts);
+        IntBitmap out = null;
+        for (int k = 0; k + GRAM <= literal.length(); k++) {
+            var bitmap = trigrams.get(trigram(literal, k));
+            if (bitmap == null) return new IntBitmap();
+            out = out == null ? bitmap : out.and(bitmap);
+            if (out.isEmpty()) break;
+        }
+        return out;
+    }
+
+    /**
+     * 文本颜色、背景颜色、模板编号可能等于给定值的 Text 下标
+     * */
+    public IntBitmap candidatesWithTextColor (List<Text> texts, Color textColor) {
+        sync(texts);
+        return textColors.getOrDefault(textColor, new IntBitmap());
+    }
+    public IntBitmap candidatesWithBackGroundColor (List<Text> texts, Color backGroundColor) {
+        sync(texts);
+        return backGroundColors.getOrDefault(backGroundColor, new IntBitmap());
+    }
+    public IntBitmap candidatesWithTemplateIndex (List<Text> texts, int templateIndex) {
+        sync(texts);
+        return templateIndexes.getOrDefault(templateIndex, new IntBitmap());
+    }
+}
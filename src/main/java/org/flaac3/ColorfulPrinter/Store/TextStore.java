@@ -0,0 +1,47 @@
+package org.flaac3.ColorfulPrinter.Store;
+
+import org.flaac3.ColorfulPrinter.Model.Text;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Printer 存放 Text 的容器，除了普通的 List 操作，还提供一次性在多个位置插入、删除的批量方法，具体的容器可以重写成更快的实现
+ * */
+public interface TextStore extends List<Text> {
+    /**
+     * 在 positions 中每个下标对应的 Text 之前分别插入 texts 中对应的 Text <br/>
+     * positions 必须从小到大排列、不能重复，并且都是插入之前的下标（可以等于 size()，表示追加到末尾）
+     * */
+    default void insertAll (int[] positions, Text[] texts) {
+        for (int k = positions.length - 1; k >= 0; k--) add(positions[k], texts[k]); //从后往前插入，前面的下标就不会改变
+    }
+
+    /**
+     * 删除多个左闭右开区间 [froms[k], tos[k]) 中的 Text，区间必须从小到大排列并且互不重叠
+     * */
+    default void removeRanges (int[] froms, int[] tos) {
+        for (int k = froms.length - 1; k >= 0; k--) subList(froms[k], tos[k]).clear();
+    }
+
+    /**
+     * get 返回的是不是容器中保存的那个对象。返回 false 时（例如 ColumnarTextStore 每次 get 都重新生成一个 Text），
+     * 修改拿到的 Text 之后要再调用 set 写回
+     * */
+    default boolean returnsStoredTexts () {
+        return true;
+    }
+    /**
+     * 修改 get 得到的 Text 之后写回，和 set 一样，只是不需要返回原来的 Text
+     * */
+    default void update (int index, Text text) {
+        set(index, text);
+    }
+
+    /**
+     * 只读的顺序遍历（渲染用）：返回的 Text 可能是反复复用的同一个对象，只能在取下一个之前读取，不能保存也不能修改
+     * */
+    default Iterator<Text> readOnlyIterator () {
+        return iterator();
+    }
+}
@@ -15,7 +15,7 @@ public interface Template {
      * */
     Template ERROR_MESSAGE = index -> {
         if (index == 0) {
-            return new TextColors(Color.RED, null);
+            return TextColors.of(Color.RED, null);
         } else return NO_COLOR;
     };
     /**
@@ -23,7 +23,23 @@ public interface Template {
      * */
     Template OK_MESSAGE = index -> {
         if (index == 0) {
-            return new TextColors(Color.GREEN, null);
+            return TextColors.of(Color.GREEN, null);
         } else return NO_COLOR;
     };
+
+    /**
+     * 包装成带缓存的模板，每个编号只调用一次原来的 getTextColor：前 denseSize 个编号直接存在数组里，
+     * 更大的编号放进最多 lruCapacity 个的 LRU 缓存。appendByTemplate 和 delete 之后重新取色都会用到缓存 <br/>
+     * 只适合同一个编号总是返回相同颜色的模板
+     * */
+    static Template memoize (Template template) {
+        return memoize(template, MemoizedTemplate.DEFAULT_DENSE_SIZE, MemoizedTemplate.DEFAULT_LRU_CAPACITY);
+    }
+    static Template memoize (Template template, int denseSize, int lruCapacity) {
+        if (template == null) throw new IllegalArgumentException("memoize 方法的 template 参数不能为空");
+        if (denseSize < 0 || lruCapacity < 0)
+            throw new IllegalArgumentException("memoize 方法的 denseSize 和 lruCapacity 参数不能小于 0");
+        if (template instanceof MemoizedTemplate) return template;
+        return new MemoizedTemplate(template, denseSize, lruCapacity);
+    }
 }
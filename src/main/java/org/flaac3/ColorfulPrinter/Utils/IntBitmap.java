@@ -0,0 +1,348 @@
+package org.flaac3.ColorfulPrinter.Utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 一个简化的压缩位图（和 Roaring Bitmap 的思路一样）：按高 16 位把整数分组，<br/>
+ * 每组元素少时用有序的 char[] 存放低 16 位，元素多时换成 1024 个 long 的位图，适合密集又分散的下标集合。<br/>
+ * 支持负数，遍历时按从小到大的顺序
+ * */
+public class IntBitmap {
+    private static final int ARRAY_MAX = 4096; //超过这个数量就换成位图，此时两种方式占用的内存一样大
+    private static final int WORDS = 1 << 10; //每个位图有 65536 位
+
+    private char[] keys = new char[4]; //每一组的高 16 位（最高位取反，这样按无符号比较就是按有符号整数的顺序）
+    private Object[] containers = new Object[4]; //char[]（有序数组，后面没用到的位置不算）或者 long[]（位图）
+    private int[] sizes = new int[4]; //每一组的元素数量
+    private int groupCount = 0;
+
+    public IntBitmap () {}
+
+    private static char high (int num) {
+        return (char) ((num ^ Integer.MIN_VALUE) >>> 16);
+    }
+    private static int toInt (char high, int low) {
+        return (high << 16 | low) ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * 添加一个元素，返回是否是新添加的
+     * */
+    public boolean add (int num) {
+        int g = group(high(num), true);
+        char low = (char) num;
+        var container = containers[g];
+        if (container instanceof long[] words) {
+            long mask = 1L << low;
+            if ((words[low >>> 6] & mask) != 0) return false;
+            words[low >>> 6] |= mask;
+            sizes[g]++;
+            return true;
+        }
+        var values = (char[]) container;
+        int i = Arrays.binarySearch(values, 0, sizes[g], low);
+        if (i >= 0) return false;
+        i = -i - 1;
+        if (sizes[g] == ARRAY_MAX) { //数组满了就换成位图
+            containers[g] = toWords(values, sizes[g]);
+            return add(num);
+        }
+        if (sizes[g] == values.length) containers[g] = values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_MAX));
+        System.arraycopy(values, i, values, i + 1, sizes[g] - i);
+        values[i] = low;
+        sizes[g]++;
+        return true;
+    }
+
+    /**
+     * 添加 from 到 to（都包含，不分先后）之间的全部元素
+     * */
+    public void addRange (int from, int to) {
+        long min = Math.min(from, to), max = Math.max(from, to);
+        while (min <= max) {
+            int start = (int) min;
+            long groupEnd = Math.min(max, (long) toInt(high(start), 0xffff)); //当前组的最后一个元素
+            if (groupEnd - min < 64) {
+                for (long i = min; i <= groupEnd; i++) add((int) i);
+            } else {
+                int g = group(high(start), true);
+                long[] words = containers[g] instanceof long[] w ? w : toWords((char[]) containers[g], sizes[g]);
+                containers[g] = words;
+                setBits(words, (char) start, (char) groupEnd);
+                sizes[g] = cardinality(words);
+            }
+            min = groupEnd + 1;
+        }
+    }
+
+    public boolean contains (int num) {
+        int g = group(high(num), false);
+        if (g < 0) return false;
+        char low = (char) num;
+        if (containers[g] instanceof long[] words) return (words[low >>> 6] & 1L << low) != 0;
+        return Arrays.binarySearch((char[]) containers[g], 0, sizes[g], low) >= 0;
+    }
+
+    /**
+     * 元素总数
+     * */
+    public int cardinality () {
+        int total = 0;
+        for (int g = 0; g < groupCount; g++) total += sizes[g];
+        return total;
+    }
+
+    public boolean isEmpty () {
+        return groupCount == 0;
+    }
+
+    /**
+     * 从小到大遍历全部元素
+     * */
+    public void forEach (IntConsumer work) {
+        for (int g = 0; g < groupCount; g++) {
+            char key = keys[g];
+            if (containers[g] instanceof long[] words) {
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        work.accept(toInt(key, w << 6 | Long.numberOfTrailingZeros(word)));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                var values = (char[]) containers[g];
+                for (int i = 0; i < sizes[g]; i++) work.accept(toInt(key, values[i]));
+            }
+        }
+    }
+
+    /**
+     * 按从小到大的顺序，把连续的元素合并成 [start, end] 交给 work，end 等于 start 表示只有一个数
+     * */
+    public void forEachRun (RunWork work) {
+        var run = new int[]{0, 0, 0}; //{是否已有范围, 开始, 结束}
+        forEach(num -> {
+            if (run[0] == 1 && num == run[2] + 1) {
+                run[2] = num;
+            } else {
+                if (run[0] == 1) work.run(run[1], run[2]);
+                run[0] = 1; run[1] = num; run[2] = num;
+            }
+        });
+        if (run[0] == 1) work.run(run[1], run[2]);
+    }
+    @FunctionalInterface
+    public interface RunWork {
+        void run (int start, int end);
+    }
+
+    /**
+     * 三种集合运算，都返回新的 IntBitmap
+     * */
+    public IntBitmap or (IntBitmap other) {
+        return combine(other, 0);
+    }
+    public IntBitmap and (IntBitmap other) {
+        return combine(other, 1);
+    }
+    public IntBitmap andNot (IntBitmap other) {
+        return combine(other, 2);
+    }
+
+    /**
+     * 按组合并两个位图，operation 为 0:并集，1:交集，2:差集
+     * */
+    private IntBitmap combine (IntBitmap other, int operation) {
+        var out = new IntBitmap();
+        int i = 0, j = 0;
+        while (i < groupCount || j < other.groupCount) {
+            int compare = i == groupCount ? 1 : j == other.groupCount ? -1 : Character.compare(keys[i], other.keys[j]);
+            if (compare < 0) { //只有自己有这一组
+                if (operation != 1) out.appendGroup(keys[i], copy(containers[i], sizes[i]), sizes[i]);
+                i++;
+            } else if (compare > 0) { //只有 other 有这一组
+                if (operation == 0) out.appendGroup(other.keys[j], copy(other.containers[j], other.sizes[j]), other.sizes[j]);
+                j++;
+            } else {
+                out.combineGroup(keys[i], containers[i], sizes[i], other.containers[j], other.sizes[j], operation);
+                i++; j++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 合并同一组的两个容器，结果不为空时追加到末尾：两边都是数组时直接归并，只有一边是位图时逐个查位，
+     * 只有两边都是位图时才按 long 逐个运算，不会为了运算把数组展开成位图
+     * */
+    private void combineGroup (char key, Object a, int sizeA, Object b, int sizeB, int operation) {
+        if (a instanceof char[] x && b instanceof char[] y) {
+            if (operation == 1) {
+                var values = new char[Math.min(sizeA, sizeB)];
+                appendValues(key, values, sizeA <= sizeB ? intersect(x, sizeA, y, sizeB, values) : intersect(y, sizeB, x, sizeA, values));
+                return;
+            }
+            var values = new char[operation == 0 ? sizeA + sizeB : sizeA];
+            int size = 0, i = 0, j = 0;
+            while (i < sizeA && j < sizeB) {
+                if (x[i] < y[j]) values[size++] = x[i++];
+                else if (x[i] > y[j]) {
+                    if (operation == 0) values[size++] = y[j];
+                    j++;
+                } else {
+                    if (operation == 0) values[size++] = x[i];
+                    i++; j++;
+                }
+            }
+            System.arraycopy(x, i, values, size, sizeA - i);
+            size += sizeA - i;
+            if (operation == 0) {
+                System.arraycopy(y, j, values, size, sizeB - j);
+                size += sizeB - j;
+            }
+            if (size > ARRAY_MAX) appendGroup(key, toWords(values, size), size);
+            else if (size > 0) appendGroup(key, values, size);
+            return;
+        }
+        if (a instanceof char[] x) { //只有 b 是位图
+            var words = (long[]) b;
+            if (operation == 0) {
+                var result = words.clone();
+                for (int i = 0; i < sizeA; i++) result[x[i] >>> 6] |= 1L << x[i];
+                appendWords(key, result, cardinality(result));
+                return;
+            }
+            var values = new char[sizeA];
+            int size = 0;
+            for (int i = 0; i < sizeA; i++) {
+                if (((words[x[i] >>> 6] & 1L << x[i]) != 0) == (operation == 1)) values[size++] = x[i];
+            }
+            appendValues(key, values, size);
+            return;
+        }
+        var words = (long[]) a;
+        if (b instanceof char[] y) { //只有 a 是位图
+            if (operation == 1) {
+                var values = new char[sizeB];
+                int size = 0;
+                for (int j = 0; j < sizeB; j++) if ((words[y[j] >>> 6] & 1L << y[j]) != 0) values[size++] = y[j];
+                appendValues(key, values, size);
+                return;
+            }
+            var result = words.clone();
+            int size = sizeA;
+            for (int j = 0; j < sizeB; j++) {
+                int w = y[j] >>> 6;
+                long mask = 1L << y[j];
+                if (operation == 0 && (result[w] & mask) == 0) {
+                    result[w] |= mask; size++;
+                } else if (operation == 2 && (result[w] & mask) != 0) {
+                    result[w] &= ~mask; size--;
+                }
+            }
+            appendWords(key, result, size);
+            return;
+        }
+        var other = (long[]) b;
+        var result = words.clone();
+        for (int w = 0; w < WORDS; w++) {
+            if (operation == 0) result[w] |= other[w];
+            else if (operation == 1) result[w] &= other[w];
+            else result[w] &= ~other[w];
+        }
+        appendWords(key, result, cardinality(result));
+    }
+
+    /**
+     * 两个有序数组的交集写进 values，返回交集的大小。small 比 large 小得多时在 large 中跳着二分查找
+     * */
+    private static int intersect (char[] small, int smallSize, char[] large, int largeSize, char[] values) {
+        int size = 0, j = 0;
+        boolean gallop = smallSize * 32 < largeSize;
+        for (int i = 0; i < smallSize && j < largeSize; i++) {
+            char value = small[i];
+            if (gallop) {
+                j = Arrays.binarySearch(large, j, largeSize, value);
+                if (j >= 0) values[size++] = value; else j = -j - 1;
+            } else {
+                while (j < largeSize && large[j] < value) j++;
+                if (j < largeSize && large[j] == value) values[size++] = value;
+            }
+        }
+        return size;
+    }
+
+    private void appendValues (char key, char[] values, int size) {
+        if (size > 0) appendGroup(key, values, size);
+    }
+    private void appendWords (char key, long[] words, int size) {
+        if (size > 0) appendGroup(key, size > ARRAY_MAX ? words : toValues(words, size), size);
+    }
+
+    /**
+     * 查找高 16 位为 key 的组，create 为 true 时不存在就按顺序插入一个空组
+     * */
+    private int group (char key, boolean create) {
+        int g = Arrays.binarySearch(keys, 0, groupCount, key);
+        if (g >= 0 || !create) return g;
+        g = -g - 1;
+        ensureGroups(groupCount + 1);
+        System.arraycopy(keys, g, keys, g + 1, groupCount - g);
+        System.arraycopy(containers, g, containers, g + 1, groupCount - g);
+        System.arraycopy(sizes, g, sizes, g + 1, groupCount - g);
+        keys[g] = key; containers[g] = new char[4]; sizes[g] = 0;
+        groupCount++;
+        return g;
+    }
+    private void appendGroup (char key, Object container, int size) {
+        ensureGroups(groupCount + 1);
+        keys[groupCount] = key; containers[groupCount] = container; sizes[groupCount] = size;
+        groupCount++;
+    }
+    private void ensureGroups (int size) {
+        if (keys.length >= size) return;
+        int capacity = Math.max(size, keys.length * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        containers = Arrays.copyOf(containers, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+    }
+
+    private static Object copy (Object container, int size) {
+        if (container instanceof long[] words) return words.clone();
+        return Arrays.copyOf((char[]) container, Math.max(size, 1));
+    }
+    private static long[] toWords (Object container, int size) {
+        if (container instanceof long[] words) return words;
+        var words = new long[WORDS];
+        var values = (char[]) container;
+        for (int i = 0; i < size; i++) words[values[i] >>> 6] |= 1L << values[i];
+        return words;
+    }
+    private static char[] toValues (long[] words, int size) {
+        var values = new char[Math.max(size, 1)];
+        int count = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[count++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+    private static void setBits (long[] words, char from, char to) {
+        for (int w = from >>> 6; w <= to >>> 6; w++) {
+            long mask = -1L;
+            if (w == from >>> 6) mask &= -1L << from;
+            if (w == to >>> 6) mask &= -1L >>> (63 - (to & 63));
+            words[w] |= mask;
+        }
+    }
+    private static int cardinality (long[] words) {
+        int total = 0;
+        for (long word : words) total += Long.bitCount(word);
+        return total;
+    }
+}
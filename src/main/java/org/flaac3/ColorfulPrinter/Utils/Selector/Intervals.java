@@ -0,0 +1,113 @@
+package org.flaac3.ColorfulPrinter.Utils.Selector;
+
+import org.flaac3.ColorfulPrinter.Utils.Selector.Range.Range;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 从小到大排列、互不重叠也不相邻的闭区间集合，只按区间的端点做集合运算，和区间里有多少个元素无关
+ * */
+class Intervals {
+    private final int[] lows;
+    private final int[] highs;
+    private final int count;
+
+    private Intervals (int[] lows, int[] highs, int count) {
+        this.lows = lows;
+        this.highs = highs;
+        this.count = count;
+    }
+
+    /**
+     * 把任意顺序的范围列表整理成区间集合，O(r log r)
+     * */
+    static Intervals of (List<Range> ranges) {
+        var bounds = new long[ranges.size()]; //高 32 位是最小值，低 32 位是最大值，排序后按最小值有序
+        if (ranges instanceof RangeList rangeList) {
+            for (int i = 0; i < bounds.length; i++) bounds[i] = (long) rangeList.min(i) << 32 | rangeList.max(i) & 0xffffffffL;
+        } else {
+            for (int i = 0; i < bounds.length; i++) {
+                var range = ranges.get(i);
+                bounds[i] = (long) range.min() << 32 | range.max() & 0xffffffffL;
+            }
+        }
+        Arrays.sort(bounds);
+        var lows = new int[bounds.length];
+        var highs = new int[bounds.length];
+        int count = 0;
+        for (long bound : bounds) {
+            int low = (int) (bound >> 32), high = (int) bound;
+            if (count > 0 && (long) low <= (long) highs[count - 1] + 1) { //和上一个区间重叠或者相邻就合并
+                highs[count - 1] = Math.max(highs[count - 1], high);
+            } else {
+                lows[count] = low; highs[count] = high; count++;
+            }
+        }
+        return new Intervals(lows, highs, count);
+    }
+
+    /**
+     * 区间里的元素总数
+     * */
+    long total () {
+        long total = 0;
+        for (int i = 0; i < count; i++) total += (long) highs[i] - lows[i] + 1;
+        return total;
+    }
+
+    /**
+     * 按从小到大的顺序生成范围列表，和把全部元素排序后交给 toListRanges 的分组结果一样
+     * */
+    RangeList toSortedList () {
+        var out = new RangeList(count);
+        for (int i = 0; i < count; i++) out.append(lows[i], highs[i]);
+        return out;
+    }
+
+    /**
+     * 第一个 high 大于等于 num 的区间下标，不存在时返回 count
+     * */
+    private int firstEndingAtOrAfter (int num) {
+        int low = 0, high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (highs[middle] < num) low = middle + 1; else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * 把从 start 到 end（有方向）中不在区间集合里的部分，按原来的方向交给 out
+     * */
+    void subtract (int start, int end, RangeBuilder out) {
+        int min = Math.min(start, end), max = Math.max(start, end);
+        int from = firstEndingAtOrAfter(min);
+        int to = from; //[from, to) 是和 [min, max] 有交集的区间
+        while (to < count && lows[to] <= max) to++;
+        if (from == to) {
+            out.add(start, end);
+            return;
+        }
+        if (start <= end) {
+            int cursor = min;
+            for (int i = from; i < to; i++) {
+                if (lows[i] > cursor) out.add(cursor, lows[i] - 1);
+                if (highs[i] >= max) return;
+                cursor = highs[i] + 1;
+            }
+            out.add(cursor, max);
+        } else {
+            int cursor = max;
+            for (int i = to - 1; i >= from; i--) {
+                if (highs[i] < cursor) out.add(cursor, highs[i] + 1);
+                if (lows[i] <= min) return;
+                cursor = lows[i] - 1;
+            }
+            out.add(cursor, min);
+        }
+    }
+    void subtractAll (RangeList ranges, RangeBuilder out) {
+        for (int i = 0; i < ranges.size(); i++) subtract(ranges.left(i), ranges.right(i), out);
+    }
+}
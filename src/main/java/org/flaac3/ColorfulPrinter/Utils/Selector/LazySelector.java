@@ -0,0 +1,278 @@
+package org.flaac3.ColorfulPrinter.Utils.Selector;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * 惰性的 Selector 表达式：step、filter、limit、skip、reverse、offset 只记录下来，<br/>
+ * 直到 forEachRange 等方法遍历时才从源 Selector 的范围开始一段段地计算，中间不生成范围列表，也不展开成集合
+ * （只有 limit 这类步骤之后的 reverse 需要在第一次遍历时把前面的结果算成 Selector）。<br/>
+ * 每一步都返回新的 LazySelector，本身不会改变，可以重复遍历
+ * */
+public class LazySelector implements RangeIterable {
+    private final Selector source; //最开始的 Selector，为 null 时由 pending 在第一次遍历时算出
+    private final Pending pending;
+    private final boolean isForward; //是否正向遍历 source
+    private final Stage[] stages; //按顺序执行的各个步骤
+
+    LazySelector (Selector source) {
+        this(source, null, true, new Stage[0]);
+    }
+    private LazySelector (Selector source, Pending pending, boolean isForward, Stage[] stages) {
+        this.source = source;
+        this.pending = pending;
+        this.isForward = isForward;
+        this.stages = stages;
+    }
+
+    /**
+     * reverse 之前的表达式，第一次遍历时才计算成 Selector，之后由共用它的 LazySelector 重复使用
+     * */
+    private static final class Pending {
+        private final LazySelector prefix;
+        private Selector result = null;
+
+        Pending (LazySelector prefix) {
+            this.prefix = prefix;
+        }
+
+        synchronized Selector get () {
+            if (result == null) result = prefix.toSelector();
+            return result;
+        }
+    }
+
+    /**
+     * 接收一段有方向的范围（start 大于 end 表示递减，都包含），返回 false 表示后面的范围都不需要了
+     * */
+    @FunctionalInterface
+    private interface RangeSink {
+        boolean accept (int start, int end);
+    }
+
+    /**
+     * 一个步骤，每次遍历都会重新调用 wrap 创建带状态的 RangeSink
+     * */
+    private interface Stage {
+        RangeSink wrap (RangeSink next);
+        /**
+         * 结果是否和元素的位置有关（比如 limit），这样的步骤之后不能直接通过反向遍历 source 来实现 reverse
+         * */
+        default boolean isPositional () {
+            return true;
+        }
+    }
+
+    private LazySelector then (Stage stage) {
+        var stages = Arrays.copyOf(this.stages, this.stages.length + 1);
+        stages[stages.length - 1] = stage;
+        return new LazySelector(source, pending, isForward, stages);
+    }
+
+    /**
+     * 每隔 n 个元素取一个，从第一个元素开始
+     * */
+    public LazySelector step (int n) {
+        if (n < 1) throw new IllegalArgumentException("step 方法的 n 参数必须大于 0");
+        if (n == 1) return this;
+        return then(next -> new RangeSink() {
+            private long phase = 0; //到下一个要取的元素还要跳过几个
+
+            @Override
+            public boolean accept (int start, int end) {
+                long length = Math.abs((long) end - start) + 1;
+                int direction = start <= end ? 1 : -1;
+                for (; phase < length; phase += n) {
+                    int num = (int) (start + direction * phase);
+                    if (!next.accept(num, num)) return false;
+                }
+                phase -= length;
+                return true;
+            }
+        });
+    }
+
+    /**
+     * 只保留满足 predicate 的元素，连续满足的元素仍然作为一段范围往下传
+     * */
+    public LazySelector filter (IntPredicate predicate) {
+        return then(new Stage() {
+            @Override
+            public RangeSink wrap (RangeSink next) {
+                return (start, end) -> {
+                    int direction = start <= end ? 1 : -1;
+                    boolean inRun = false;
+                    int runStart = start;
+                    for (int num = start; ; num += direction) {
+                        if (predicate.test(num)) {
+                            if (!inRun) { inRun = true; runStart = num; }
+                        } else if (inRun) {
+                            inRun = false;
+                            if (!next.accept(runStart, num - direction)) return false;
+                        }
+                        if (num == end) break;
+                    }
+                    return !inRun || next.accept(runStart, end);
+                };
+            }
+            @Override
+            public boolean isPositional () {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 最多保留前 maxSize 个元素，够了之后就不再遍历 source
+     * */
+    public LazySelector limit (int maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("limit 方法的 maxSize 参数不能小于 0");
+        return then(next -> new RangeSink() {
+            private long remaining = maxSize;
+
+            @Override
+            public boolean accept (int start, int end) {
+                if (remaining == 0) return false;
+                long length = Math.abs((long) end - start) + 1;
+                if (length < remaining) {
+                    remaining -= length;
+                    return next.accept(start, end);
+                }
+                int direction = start <= end ? 1 : -1;
+                next.accept(start, (int) (start + direction * (remaining - 1)));
+                remaining = 0;
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 跳过前 n 个元素
+     * */
+    public LazySelector skip (int n) {
+        if (n < 0) throw new IllegalArgumentException("skip 方法的 n 参数不能小于 0");
+        if (n == 0) return this;
+        return then(next -> new RangeSink() {
+            private long remaining = n;
+
+            @Override
+            public boolean accept (int start, int end) {
+                if (remaining == 0) return next.accept(start, end);
+                long length = Math.abs((long) end - start) + 1;
+                if (length <= remaining) {
+                    remaining -= length;
+                    return true;
+                }
+                int direction = start <= end ? 1 : -1;
+                start = (int) (start + direction * remaining);
+                remaining = 0;
+                return next.accept(start, end);
+            }
+        });
+    }
+
+    /**
+     * 所有元素都加上 k
+     * */
+    public LazySelector offset (int k) {
+        if (k == 0) return this;
+        return then(new Stage() {
+            @Override
+            public RangeSink wrap (RangeSink next) {
+                return (start, end) -> next.accept(start + k, end + k);
+            }
+            @Override
+            public boolean isPositional () {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 反转顺序。前面只有 filter、offset 这些和位置无关的步骤时，直接反向遍历 source；<br/>
+     * 否则需要先知道前面的结果，在第一次遍历时把它计算成一个 Selector（按范围存储）再反向遍历
+     * */
+    public LazySelector reverse () {
+        for (Stage stage : stages) {
+            if (stage.isPositional()) return new LazySelector(null, new Pending(this), false, new Stage[0]);
+        }
+        return new LazySelector(source, pending, !isForward, stages);
+    }
+
+    /**
+     * 从 source 开始一段段地推进，直到遍历完或者某一步不再需要后面的范围
+     * */
+    private void run (RangeSink sink) {
+        for (int i = stages.length - 1; i >= 0; i--) sink = stages[i].wrap(sink);
+        var ranges = (source != null ? source : pending.get()).ranges;
+        if (isForward) {
+            for (int i = 0; i < ranges.size(); i++) {
+                if (!sink.accept(ranges.left(i), ranges.right(i))) return;
+            }
+        } else {
+            for (int i = ranges.size() - 1; i >= 0; i--) {
+                if (!sink.accept(ranges.right(i), ranges.left(i))) return;
+            }
+        }
+    }
+
+    /**
+     * 遍历结果，首尾相接、方向相同的范围会先合并再交给 work
+     * */
+    @Override
+    public void forEachRange (RangeWork work) {
+        var builder = new RangeBuilder(work);
+        run((start, end) -> {
+            builder.add(start, end);
+            return true;
+        });
+        builder.finish();
+    }
+
+    /**
+     * 逐个遍历结果中的元素
+     * */
+    public void forEach (IntConsumer work) {
+        run((start, end) -> {
+            int direction = start <= end ? 1 : -1;
+            for (int num = start; ; num += direction) {
+                work.accept(num);
+                if (num == end) break;
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 计算出结果，生成一个包含了大小信息（size）的 Selector，要求结果中没有重复元素
+     * */
+    public Selector toSelector () {
+        var builder = new RangeBuilder();
+        run((start, end) -> {
+            builder.add(start, end);
+            return true;
+        });
+        var selector = new Selector(builder.toList());
+        selector.setSize(builder.size());
+        return selector;
+    }
+
+    /**
+     * 计算出结果并生成 SortSelector，要求结果是从小到大排列的，否则抛出 IllegalArgumentException
+     * */
+    public SortSelector toSortSelector () {
+        var builder = new RangeBuilder();
+        var previous = new long[]{Long.MIN_VALUE}; //上一段范围的最大值
+        run((start, end) -> {
+            if (start > end || start <= previous[0])
+                throw new IllegalArgumentException("LazySelector 的结果不是从小到大排列的，不能转换成 SortSelector");
+            previous[0] = end;
+            builder.add(start, end);
+            return true;
+        });
+        var sortSelector = new SortSelector(builder.toList());
+        sortSelector.setSize(builder.size());
+        return sortSelector;
+    }
+}
@@ -1,6 +1,6 @@
 package org.flaac3.ColorfulPrinter.Utils.Selector.Range;
 
-import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public class LMinRangeTwo extends Range {
     private final int right; //右边界，用 final 修饰，这样就不用考虑浅拷贝的问题了
@@ -37,7 +37,7 @@ public class LMinRangeTwo extends Range {
      * 遍历区间每一个元素，并对每个元素执行给定的操作，其中 isForward 设置是否正向遍历
      * */
     @Override
-    public void forEach (boolean isForward, Consumer<Integer> rangeWork) {
+    public void forEach (boolean isForward, IntConsumer rangeWork) {
         if (isForward) for (int i = left; i <= right; i++) rangeWork.accept(i);
         else for (int i = right; i >= left; i--) rangeWork.accept(i);
     }
@@ -1,6 +1,9 @@
 package org.flaac3.ColorfulPrinter.Utils.Selector.Range;
 
-import java.util.function.Consumer;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class Range {
     protected final int left; //左边界，用 final 修饰，这样就不用考虑浅拷贝的问题了
@@ -49,10 +52,38 @@ public class Range {
     /**
      * 遍历区间每一个元素，并对每个元素执行给定的操作，其中 isForward 设置是否正向遍历
      * */
-    public void forEach (boolean isForward, Consumer<Integer> rangeWork) {
+    public void forEach (boolean isForward, IntConsumer rangeWork) {
         rangeWork.accept(left);
     }
-    public void forEach (Consumer<Integer> rangeWork) {
+    public void forEach (IntConsumer rangeWork) {
         forEach(true, rangeWork);
     }
+    /**
+     * 从 left 到 right 依次返回每个元素的迭代器，不装箱
+     * */
+    public PrimitiveIterator.OfInt iterator () {
+        return new PrimitiveIterator.OfInt() {
+            private final int step = isLMin() ? 1 : -1;
+            private final int end = right() + step;
+            private int next = left;
+
+            @Override
+            public boolean hasNext () {
+                return next != end;
+            }
+
+            @Override
+            public int nextInt () {
+                if (next == end) throw new NoSuchElementException();
+                var out = next; next += step; return out;
+            }
+        };
+    }
+    /**
+     * 从 left 到 right 的 IntStream
+     * */
+    public IntStream stream () {
+        if (isLMin()) return IntStream.rangeClosed(left, right());
+        return IntStream.rangeClosed(right(), left).map(i -> left + right() - i);
+    }
 }
@@ -0,0 +1,79 @@
+package org.flaac3.ColorfulPrinter.Utils.Selector;
+
+import org.flaac3.ColorfulPrinter.Utils.Selector.Range.Range;
+
+/**
+ * 按顺序接收一段段有方向的范围，和上一段首尾相接、方向一致时直接合并，最后生成范围列表，<br/>
+ * 分组结果和把所有元素逐个交给 toListRanges 一样，但是只需要按范围处理
+ * */
+class RangeBuilder {
+    private final RangeList out; //生成的范围列表，为 null 时直接把合并好的范围交给 target
+    private final RangeWork target;
+    private boolean hasCurrent = false;
+    private int left; //当前范围的左边界
+    private int right; //当前范围的右边界
+    private int step; //0:当前范围只有一个数，1:递增，-1:递减
+    private int size = 0; //已经接收的元素总数
+
+    RangeBuilder () {
+        out = new RangeList(8);
+        target = null;
+    }
+    /**
+     * 不生成范围列表，合并好一段就交给 target 一段，最后要调用 finish
+     * */
+    RangeBuilder (RangeWork target) {
+        out = null;
+        this.target = target;
+    }
+
+    /**
+     * 添加从 start 到 end（都包含）的元素，start 大于 end 表示递减
+     * */
+    void add (int start, int end) {
+        int pieceStep = Integer.compare(end, start);
+        size += Math.abs(end - start) + 1;
+        if (hasCurrent) {
+            int direction = step != 0 ? step : Integer.compare(start, right); //当前只有一个数时由新的一段决定方向
+            if ((direction == 1 || direction == -1) && start == right + direction
+                    && (pieceStep == 0 || pieceStep == direction)) {
+                right = end; step = direction;
+                return;
+            }
+            flush();
+        }
+        hasCurrent = true;
+        left = start; right = end; step = pieceStep;
+    }
+    void add (Range range) {
+        add(range.left(), range.right());
+    }
+    void addAll (RangeList ranges) {
+        for (int i = 0; i < ranges.size(); i++) add(ranges.left(i), ranges.right(i));
+    }
+
+    int size () {
+        return size;
+    }
+
+    private void flush () {
+        if (target == null) out.append(left, right);
+        else if (step == 0) target.ifOne(left);
+        else target.ifRange(left, right);
+    }
+
+    /**
+     * 交出最后一段还没有合并完的范围
+     * */
+    void finish () {
+        if (hasCurrent) {
+            flush();
+            hasCurrent = false;
+        }
+    }
+
+    RangeList toList () {
+        finish();
+        return out;
+    }
+}
@@ -0,0 +1,11 @@
+package org.flaac3.ColorfulPrinter.Utils.Selector;
+
+/**
+ * 可以按范围逐段遍历的下标集合，Selector 和 LazySelector 都实现了这个接口
+ * */
+public interface RangeIterable {
+    /**
+     * 按顺序把每一段范围交给 work，连续的元素会合并成一段
+     * */
+    void forEachRange (RangeWork work);
+}
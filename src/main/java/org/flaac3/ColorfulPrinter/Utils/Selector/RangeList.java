@@ -0,0 +1,149 @@
+package org.flaac3.ColorfulPrinter.Utils.Selector;
+
+import org.flaac3.ColorfulPrinter.Utils.Selector.Range.LMaxRangeTwo;
+import org.flaac3.ColorfulPrinter.Utils.Selector.Range.LMinRangeTwo;
+import org.flaac3.ColorfulPrinter.Utils.Selector.Range.Range;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Selector 内部存储范围的列表：左边界、右边界和前缀元素数量分别放在 int[] 数组里，<br/>
+ * 每个范围只占 12 字节，查找时也只访问连续的数组。通过 List 接口拿到的 Range 是按需创建的视图，这个列表不能修改
+ * */
+public class RangeList extends AbstractList<Range> implements RandomAccess {
+    private int[] lefts;
+    private int[] rights;
+    private int[] prefix = null; //prefix[i] 是第 i 个范围之前的元素总数，长度为 count + 1，用到时才计算
+    private int count = 0;
+
+    RangeList (int capacity) {
+        lefts = new int[Math.max(capacity, 4)];
+        rights = new int[lefts.length];
+    }
+
+    /**
+     * 复制任意的范围列表，如果本身就是 RangeList 就直接返回（不能修改，所以可以共享）
+     * */
+    static RangeList copyOf (List<Range> ranges) {
+        if (ranges instanceof RangeList rangeList) return rangeList;
+        var out = new RangeList(ranges.size());
+        for (Range range : ranges) out.append(range.left(), range.right());
+        return out;
+    }
+
+    /**
+     * 在末尾添加一个从 left 到 right（都包含）的范围，只在创建时使用
+     * */
+    void append (int left, int right) {
+        if (count == lefts.length) {
+            lefts = Arrays.copyOf(lefts, count * 2);
+            rights = Arrays.copyOf(rights, count * 2);
+        }
+        lefts[count] = left;
+        rights[count] = right;
+        count++;
+        prefix = null;
+    }
+
+    public int left (int i) {
+        return lefts[Objects.checkIndex(i, count)];
+    }
+    public int right (int i) {
+        return rights[Objects.checkIndex(i, count)];
+    }
+    public boolean isLMin (int i) {
+        return left(i) <= rights[i];
+    }
+    public int min (int i) {
+        return Math.min(left(i), rights[i]);
+    }
+    public int max (int i) {
+        return Math.max(left(i), rights[i]);
+    }
+    /**
+     * 第 i 个范围的元素数量
+     * */
+    public int size (int i) {
+        return Math.abs(right(i) - lefts[i]) + 1;
+    }
+
+    /**
+     * 第 i 个范围之前的元素总数（i 等于 size() 时就是全部元素的数量）
+     * */
+    public int prefix (int i) {
+        return getPrefix()[Objects.checkIndex(i, count + 1)];
+    }
+    int[] getPrefix () {
+        if (prefix == null) {
+            var prefix = new int[count + 1];
+            for (int i = 0; i < count; i++) prefix[i + 1] = prefix[i] + Math.abs(rights[i] - lefts[i]) + 1;
+            this.prefix = prefix;
+        }
+        return prefix;
+    }
+
+    /**
+     * 查找展开后下标为 index 的元素在第几个范围里，也就是最后一个 prefix 小于等于 index 的范围，<br/>
+     * 和 Arrays.binarySearch 一样是 O(log r)。index 超出 [0, total()) 时抛出 IndexOutOfBoundsException
+     * */
+    public int search (int index) {
+        var prefix = getPrefix();
+        Objects.checkIndex(index, prefix[count]);
+        return search(prefix, index, 0, count - 1);
+    }
+
+    /**
+     * 和 search(index) 一样，但是只在 [0, fromIndex] 中查找，并且从 fromIndex 开始往前按 1、2、4…… 的步长倍增（galloping），<br/>
+     * 结果离 fromIndex 越近越快，距离为 d 时是 O(log d)，适合在上一次查找的位置附近再查一次
+     * */
+    public int search (int index, int fromIndex) {
+        var prefix = getPrefix();
+        Objects.checkIndex(fromIndex, count);
+        if (index < 0 || index >= prefix[fromIndex + 1]) //超出 [0, fromIndex] 这些范围覆盖的元素
+            throw new IndexOutOfBoundsException("index " + index + " 不在前 " + (fromIndex + 1) + " 个范围中");
+        int high = fromIndex, step = 1;
+        while (high - step >= 0 && prefix[high - step] > index) { //[high - step, high] 里的范围都在 index 后面
+            high -= step;
+            step <<= 1;
+        }
+        return search(prefix, index, Math.max(high - step, 0), high);
+    }
+
+    /**
+     * 在 [low, high] 中二分查找最后一个 prefix 小于等于 index 的下标，调用前要保证 prefix[low] <= index
+     * */
+    private static int search (int[] prefix, int index, int low, int high) {
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (prefix[middle] <= index) low = middle; else high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * 全部元素的数量
+     * */
+    public int total () {
+        return getPrefix()[count];
+    }
+
+    /**
+     * 返回第 i 个范围的视图
+     * */
+    @Override
+    public Range get (int i) {
+        int left = left(i), right = rights[i];
+        if (left == right) return new Range(left);
+        if (left < right) return new LMinRangeTwo(left, right);
+        return new LMaxRangeTwo(left, right);
+    }
+
+    @Override
+    public int size () {
+        return count;
+    }
+}
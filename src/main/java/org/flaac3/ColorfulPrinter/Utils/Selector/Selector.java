@@ -2,17 +2,19 @@ package org.flaac3.ColorfulPrinter.Utils.Selector;
 
 import org.flaac3.ColorfulPrinter.Model.Color;
 import org.flaac3.ColorfulPrinter.Printer;
+import org.flaac3.ColorfulPrinter.Utils.IntBitmap;
 import org.flaac3.ColorfulPrinter.Utils.IntPair;
 import org.flaac3.ColorfulPrinter.Utils.Selector.Range.*;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.BiConsumer;
-import java.util.function.Consumer;
-
-public class Selector {
-    protected final ArrayList<Range> ranges; //存储范围的列表
-    private ArrayList<Integer> indexList = null; //不能直接调用，得用 getIndexList 方法，表示索引列表
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+public class Selector implements RangeIterable {
+    protected final RangeList ranges; //存储范围的列表，同时记录了每个范围之前的元素数量（索引列表）
     private int size = -1; //不能直接调用，得用 getSize 方法，表示范围中的元素数量
 
     /**
@@ -24,87 +26,100 @@ public class Selector {
     public Selector (int[][] ranges) {
         this.ranges = toListRanges(ranges);
     }
-    public Selector (List<Range> ranges) { //浅拷贝
-        if (ranges instanceof ArrayList) this.ranges = (ArrayList<Range>) ranges;
-        else this.ranges = new ArrayList<>(ranges);
+    public Selector (List<Range> ranges) { //复制到 RangeList 中，传入的是 RangeList 时直接共享
+        this.ranges = RangeList.copyOf(ranges);
     }
 
     /**
-     * 传入一个范围，去重后再实例化 Selector
+     * 传入一个范围，去重后再实例化 Selector（保留第一次出现的位置）
      * */
     public static Selector of (int[][] ranges) {
-        return create(toLinkedHashSet(ranges));
+        return of(toRangeList(ranges));
     }
     public static Selector of (List<Range> ranges) {
-        return create(toLinkedHashSet(ranges));
+        return create(dedupe(ranges));
     }
 
     /**
      * 创建一个仅包含了大小信息（size）的 Selector
      * */
-    private static Selector create (LinkedHashSet<Integer> linkedHashSet) {
-        var listRanges = toListRanges(linkedHashSet.iterator());
-        var selector = new Selector(listRanges); //创建一个 Selector
-        selector.setSize(linkedHashSet.size()); //设置元素总数
+    private static Selector create (RangeBuilder builder) {
+        var selector = new Selector(builder.toList()); //创建一个 Selector
+        selector.setSize(builder.size()); //设置元素总数
         return selector;
     }
 
+    /**
+     * 按顺序去重，结果的分组和 toListRanges 一样。范围之间没有重叠时直接按范围处理，<br/>
+     * 否则用 IntBitmap 记录出现过的元素逐个过滤，不需要装箱
+     * */
+    protected static RangeBuilder dedupe (List<Range> ranges) {
+        var builder = new RangeBuilder();
+        var nonNull = new ArrayList<Range>(ranges.size());
+        long total = 0;
+        for (Range range : ranges) {
+            if (range == null) continue;
+            nonNull.add(range);
+            total += range.size();
+        }
+        if (Intervals.of(nonNull).total() == total) { //没有重复元素
+            nonNull.forEach(builder::add);
+            return builder;
+        }
+        var seen = new IntBitmap();
+        for (Range range : nonNull) {
+            range.forEach(num -> {
+                if (seen.add(num)) builder.add(num, num);
+            });
+        }
+        return builder;
+    }
+
+    /**
+     * 把范围数组转换成范围列表，跳过 null 和空数组，不检查重复
+     * */
+    protected static List<Range> toRangeList (int[][] ranges) {
+        var out = new ArrayList<Range>(ranges.length);
+        for (int[] range : ranges) {
+            if (range == null || range.length == 0) continue;
+            if (range.length == 1 || range[0] == range[1]) out.add(new Range(range[0]));
+            else if (range[0] < range[1]) out.add(new LMinRangeTwo(range[0], range[1]));
+            else out.add(new LMaxRangeTwo(range[0], range[1]));
+        }
+        return out;
+    }
+
     /**
      * @return 当前 ranges 展开后的元素总数
      * */
     public int size () {
-        if (size == -1) {
-            size = 0;
-            if (indexList == null) {
-                ranges.forEach(range -> size += range.size());
-            } else if (ranges.size() > 0) {
-                var last = indexList.size() - 1;
-                size = indexList.get(last) + ranges.get(last).size();
-            }
-        }
+        if (size == -1) size = ranges.total();
         return size;
     }
     protected void setSize (int size) {
         this.size = size;
     }
 
-    protected ArrayList<Integer> getIndexList () {
-        if (indexList == null) {
-            var indexList = new ArrayList<>(List.of(0)); //索引列表，起始值为 0
-            for (int i = 1; i < ranges.size(); i++) { //计算索引列表
-                indexList.add(indexList.get(i - 1) + ranges.get(i - 1).size());
-            }
-            this.indexList = indexList;
-        }
-        return indexList;
-    }
-
     public int rangesSize () {
         return ranges.size();
     }
 
-    public ArrayList<Range> getRanges () {
+    /**
+     * 返回范围列表，其中的 Range 是按需创建的视图，列表本身不能修改
+     * */
+    public RangeList getRanges () {
         return ranges;
     }
 
     /**
-     * 用二分法在 indexList 中快速查找 <br/>
+     * 在索引列表中查找，返回 ranges 中对应的下标 <br/>
      * @param indexNum ranges 展开成一个个元素后的下标
-     * @param fromIndex indexList 从后往前遍历的起始下标
-     * @return indexList 中对应的下标
+     * @param fromIndex 只在 ranges 的 [0, fromIndex] 中查找，从 fromIndex 开始往前倍增步长，离 fromIndex 越近越快
+     * @return ranges 中对应的下标
      * */
     protected int search (int indexNum, int fromIndex) {
-        var indexList = getIndexList(); //索引列表
-        var size = indexList.size();
-        if (indexNum >= indexList.get(fromIndex)) return fromIndex;
-        while (true) {
-            size >>= 1;
-            var middle = fromIndex - size;
-            if (indexNum < indexList.get(middle)) {
-                if (size == 1) return middle - 1;
-                fromIndex = middle;
-            } else if (size == 1) return middle;
-        }
+        if (fromIndex == ranges.size() - 1) return ranges.search(indexNum); //整个列表直接二分查找
+        return ranges.search(indexNum, fromIndex);
     }
 
     /**
@@ -114,21 +129,18 @@ public class Selector {
         if (index < 0 || index >= size())
             throw new IndexOutOfBoundsException("get 方法的 index 参数超出范围，或者 Selector 本身为空");
 
-        var indexList = getIndexList(); //获取索引列表
-        var i = search(index, indexList.size() - 1); //二分法查找 indexList 中对应的下标
-        var range = ranges.get(i); //获取对应的 Range
+        var i = search(index, ranges.size() - 1); //二分法查找索引列表中对应的下标
 
-        if (range.isLMin())
-            return range.left() + (index - indexList.get(i));
+        if (ranges.isLMin(i))
+            return ranges.left(i) + (index - ranges.prefix(i));
         else
-            return range.left() - (index - indexList.get(i));
+            return ranges.left(i) - (index - ranges.prefix(i));
     }
 
     /**
      * 这个类用来封装输入 index 来查找对应元素的方法
      * */
     protected class RangeHandler {
-        List<Integer> indexList = getIndexList();
         int i; //第一次查找指定 index 时，记录 indexList/ranges 的下标
         Range rangeI; //第一次查找指定 index 时，记录 range
         int j; //第二次查找指定 index 时，记录 indexList/ranges 的下标（小于等于i）
@@ -138,7 +150,7 @@ public class Selector {
          * 第一次查找，从 indexList 的最后一项递减查询
          * */
         int first (int index) {
-            return get(index, indexList.size() - 1, (num, range) -> {
+            return get(index, ranges.size() - 1, (range, num) -> {
                 i = num;
                 rangeI = range;
             });
@@ -148,7 +160,7 @@ public class Selector {
          * 第二次查找，在第一次查找位置以及之前开始递减查询
          * */
         int last (int index) {
-            return get(index, i, (num, range) -> {
+            return get(index, i, (range, num) -> {
                 j = num;
                 rangeJ = range;
             });
@@ -157,14 +169,13 @@ public class Selector {
         /**
          * 根据输入的 index（索引位置）和 from（indexList的起始位置）返回对应元素，通过 Lambda 返回 索引位置 和 Range
          * */
-        int get (int index, int from, BiConsumer<Integer, Range> consumer) {
-            from = search(index, from); //二分法查找 indexList 中对应的下标
-            var range = ranges.get(from);
-            consumer.accept(from, range);
-            if (range.isLMin())
-                return range.left() + (index - indexList.get(from));
+        int get (int index, int from, ObjIntConsumer<Range> consumer) {
+            from = search(index, from); //二分法查找索引列表中对应的下标
+            consumer.accept(ranges.get(from), from);
+            if (ranges.isLMin(from))
+                return ranges.left(from) + (index - ranges.prefix(from));
             else
-                return range.left() - (index - indexList.get(from));
+                return ranges.left(from) - (index - ranges.prefix(from));
         }
     }
     /**
@@ -286,7 +297,7 @@ public class Selector {
      * */
     public int getMax () {
         var intPair = new IntPair(); //数字处理工具
-        ranges.forEach( range -> intPair.setBMax(range.max()));
+        for (int i = 0; i < ranges.size(); i++) intPair.setBMax(ranges.max(i));
         return intPair.getB();
     }
 
@@ -295,7 +306,7 @@ public class Selector {
      * */
     public int getMin () {
         var intPair = new IntPair(); //数字处理工具
-        ranges.forEach( range -> intPair.setAMin(range.min()));
+        for (int i = 0; i < ranges.size(); i++) intPair.setAMin(ranges.min(i));
         return intPair.getA();
     }
 
@@ -303,14 +314,14 @@ public class Selector {
      * 取第一个元素出来
      * */
     public int getFirst () {
-        return ranges.get(0).left();
+        return ranges.left(0);
     }
 
     /**
      * 取最后一个元素出来
      * */
     public int getLast () {
-        return ranges.get(ranges.size() - 1).right();
+        return ranges.right(ranges.size() - 1);
     }
 
     /**
@@ -323,42 +334,79 @@ public class Selector {
     /**
      * 两种遍历的方式，其中 isForward 设置是否正向遍历
      * */
-    public void forEach (boolean isForward, Consumer<Integer> work) {
+    public void forEach (boolean isForward, IntConsumer work) {
         if (isForward) {
-            ranges.forEach(range -> range.forEach(true, work));
+            for (int i = 0; i < ranges.size(); i++) {
+                int left = ranges.left(i), right = ranges.right(i), step = left <= right ? 1 : -1;
+                for (int num = left; ; num += step) {
+                    work.accept(num);
+                    if (num == right) break;
+                }
+            }
         } else {
             for (int i = ranges.size() - 1; i >= 0; i--) {
-                ranges.get(i).forEach(false, work);
+                int left = ranges.left(i), right = ranges.right(i), step = left <= right ? -1 : 1;
+                for (int num = right; ; num += step) {
+                    work.accept(num);
+                    if (num == left) break;
+                }
             }
         }
     }
-    public void forEach (Consumer<Integer> work) {
+    public void forEach (IntConsumer work) {
         forEach(true, work);
     }
     public void forEachRange (boolean isForward, RangeWork work) {
         if (isForward) {
-            ranges.forEach( range -> {
-                if (range.size() == 1) {
-                    work.ifOne(range.left());
+            for (int i = 0; i < ranges.size(); i++) {
+                int left = ranges.left(i), right = ranges.right(i);
+                if (left == right) {
+                    work.ifOne(left);
                 } else {
-                    work.ifRange(range.left(), range.right());
+                    work.ifRange(left, right);
                 }
-            });
+            }
         } else {
             for (int i = ranges.size() - 1; i >= 0; i--) {
-                var range = ranges.get(i);
-                if (range.size() == 1) {
-                    work.ifOne(range.left());
+                int left = ranges.left(i), right = ranges.right(i);
+                if (left == right) {
+                    work.ifOne(left);
                 } else {
-                    work.ifRange(range.right(), range.left());
+                    work.ifRange(right, left);
                 }
             }
         }
     }
+    @Override
     public void forEachRange (RangeWork work) {
         forEachRange(true, work);
     }
 
+    /**
+     * 返回以当前 Selector 为起点的惰性表达式，下面几个方法是它的简写，只有遍历时才会计算
+     * */
+    public LazySelector lazy () {
+        return new LazySelector(this);
+    }
+    public LazySelector step (int n) {
+        return lazy().step(n);
+    }
+    public LazySelector filter (IntPredicate predicate) {
+        return lazy().filter(predicate);
+    }
+    public LazySelector limit (int maxSize) {
+        return lazy().limit(maxSize);
+    }
+    public LazySelector skip (int n) {
+        return lazy().skip(n);
+    }
+    public LazySelector reverse () {
+        return lazy().reverse();
+    }
+    public LazySelector offset (int k) {
+        return lazy().offset(k);
+    }
+
     /**
      * 根据当前信息创建子类 SortSelector 对象
      * */
@@ -418,59 +466,87 @@ public class Selector {
     * */
 
     /**
-     * 合并另一个 Selector 成一个新的包含了大小信息（size）的 Selector，取并集
+     * 合并另一个 Selector 成一个新的包含了大小信息（size）的 Selector，取并集 <br/>
+     * 先保留本身的顺序，再按顺序接上 selector 中本身没有的部分，只按范围的端点计算，复杂度和元素数量无关
      * */
     public Selector plus (Selector selector) {
-        var set = toLinkedHashSet(ranges);
-        set.addAll(toLinkedHashSet(selector.ranges));
-        return create(set);
+        var builder = new RangeBuilder();
+        builder.addAll(ranges);
+        Intervals.of(ranges).subtractAll(selector.ranges, builder);
+        return create(builder);
     }
 
     /**
-     * 减去另一个 Selector 成一个新的包含了大小信息（size）的 Selector，取差集
+     * 减去另一个 Selector 成一个新的包含了大小信息（size）的 Selector，取差集（保留本身的顺序）
      * */
     public Selector minus (Selector selector) {
-        var set = toLinkedHashSet(ranges);
-        set.removeAll(toLinkedHashSet(selector.ranges));
-        return create(set);
+        var builder = new RangeBuilder();
+        Intervals.of(selector.ranges).subtractAll(ranges, builder);
+        return create(builder);
     }
 
     /**
-     * 返回迭代器
+     * 把全部元素放进一个压缩位图，适合元素多又分散时做集合运算
      * */
-    public Iterator<Integer> iterator () {
-        return new Iterator<>() {
-            private final ArrayList<Integer> indexList = getIndexList();
-            private final int lastProcess = indexList.size() - 1;
-            private final int size = size();
-            private int process = 0;
-            private int index = 0;
+    public IntBitmap toBitmap () {
+        var bitmap = new IntBitmap();
+        for (int i = 0; i < ranges.size(); i++) bitmap.addRange(ranges.left(i), ranges.right(i));
+        return bitmap;
+    }
+
+    /**
+     * 返回迭代器，直接按 Range 逐个推进，不装箱
+     * */
+    public PrimitiveIterator.OfInt iterator () {
+        return new PrimitiveIterator.OfInt() {
+            private int process = -1; //当前 Range 在 ranges 中的下标
+            private int next; //下一个要返回的元素
+            private int step; //当前 Range 的方向，1 或 -1
+            private int remaining = 0; //当前 Range 还剩下的元素数量
 
             @Override
-            public boolean hasNext() { return index < size; }
+            public boolean hasNext() {
+                while (remaining == 0 && process + 1 < ranges.size()) {
+                    process++;
+                    next = ranges.left(process);
+                    step = ranges.isLMin(process) ? 1 : -1;
+                    remaining = ranges.size(process);
+                }
+                return remaining > 0;
+            }
 
             @Override
-            public Integer next() {
-                int out; var range = ranges.get(process);
-                if (range.isLMin())
-                    out = range.left() + (index - indexList.get(process));
-                else
-                    out = range.left() - (index - indexList.get(process));
-                index ++; var nextProcess = process + 1;
-                if (nextProcess <= lastProcess && index == indexList.get(nextProcess))
-                    process = nextProcess;
+            public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException();
+                var out = next;
+                next += step; remaining --;
                 return out;
             }
         };
     }
 
+    /**
+     * 按顺序返回所有元素的 IntStream
+     * */
+    public IntStream stream () {
+        return StreamSupport.intStream(
+                Spliterators.spliterator(iterator(), size(), spliteratorCharacteristics()), false
+        );
+    }
+    protected int spliteratorCharacteristics () {
+        return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+    }
+
     /**
      * 根据当前信息创建 int[] 元素列表
      * */
     public int[] toIntArray () {
         var out = new int[size()];
-        var count = new AtomicInteger(0);
-        forEach(num -> out[count.getAndIncrement()] = num);
+        var count = 0;
+        for (int r = 0; r < ranges.size(); r++) {
+            var step = ranges.isLMin(r) ? 1 : -1;
+            for (int i = 0, num = ranges.left(r), n = ranges.size(r); i < n; i++, num += step) out[count++] = num;
+        }
         return out;
     }
 
@@ -494,100 +570,15 @@ public class Selector {
                 .append(null, '}').toColorString();
     }
 
-    /**
-     * 传入范围数组（范围列表），返回一个全部的、满足范围的有序取值 LinkedHashSet 集合（去重）
-     * */
-    protected static LinkedHashSet<Integer> toLinkedHashSet (int[][] ranges) {
-        var linkedHashSet = new LinkedHashSet<Integer>();
-        for (int[] range : ranges) {
-            if (range == null) continue; //对 null 值的处理，跳过当前循环
-            if (range.length == 1) {
-                linkedHashSet.add(range[0]);
-            } else if (range.length >= 2) {
-                if (range[0] <= range[1]) {
-                    for (int i = range[0]; i <= range[1]; i++) linkedHashSet.add(i);
-                } else {
-                    for (int i = range[0]; i >= range[1]; i--) linkedHashSet.add(i);
-                }
-            }
-        }
-        return linkedHashSet;
-    }
-    protected static LinkedHashSet<Integer> toLinkedHashSet (List<Range> ranges) {
-        var linkedHashSet = new LinkedHashSet<Integer>();
-        ranges.forEach( range -> {
-            if (range == null) return;
-            range.forEach(linkedHashSet::add);
-        });
-        return linkedHashSet;
-    }
-
     /**
      * 用 stream流 的方式把 范围数组 转换成 范围列表（必须保证传入的 range 二维数组符合要求）
      * */
-    private static ArrayList<Range> toListRanges (int[][] ranges) {
-        var out = new ArrayList<Range>();
-        Arrays.stream(ranges).forEach( each -> {
-            if (each.length == 1) {
-                out.add(new Range(each[0]));
-            } else {
-                if (each[0] < each[1]) out.add(new LMinRangeTwo(each[0], each[1]));
-                else out.add(new LMaxRangeTwo(each[0], each[1]));
-            }
-        });
-        return out;
-    }
-
-    /**
-     * 将一串无序或部分有序的整数根据连续性分组成范围列表
-     * */
-    @SuppressWarnings("Duplicates")
-    private static ArrayList<Range> toListRanges (Iterator<Integer> iterator) {
-        ArrayList<Range> listRanges = new ArrayList<>(); //范围列表
-        byte flag = 0; //0:当前元素不连续，1:当前元素递增，2:当前元素递减
-        int previous = 0; //上一个元素值
-        int left = 0; //范围左边界
-
-        if (iterator.hasNext()) {
-            previous = iterator.next(); //首先拿出第一个元素
-            if (iterator.hasNext()) {
-                left = previous; //如果之后还有元素，则把 第一个元素值 赋值给 左边界
-            } else {
-                listRanges.add(new Range(previous));
-            }
+    protected static RangeList toListRanges (int[][] ranges) {
+        var out = new RangeList(ranges.length);
+        for (int[] each : ranges) {
+            if (each.length == 1) out.append(each[0], each[0]);
+            else out.append(each[0], each[1]);
         }
-
-        while (iterator.hasNext()) {
-            var now = iterator.next();
-            if (now == previous + 1) {
-                flag = 1;
-                previous = now; //把 上一个元素值 设置成 当前元素值
-                if (!iterator.hasNext()) { //如果当前元素是最后一个
-                    listRanges.add(new LMinRangeTwo(left, previous));break;
-                }
-            } else if (now == previous - 1) {
-                flag = 2;
-                previous = now; //把 上一个元素值 设置成 当前元素值
-                if (!iterator.hasNext()) { //如果当前元素是最后一个
-                    listRanges.add(new LMaxRangeTwo(left, previous));break;
-                }
-            } else {
-                if (flag == 1) { //如果上次遍历的元素递增
-                    flag = 0;
-                    listRanges.add(new LMinRangeTwo(left, previous));
-                } else if (flag == 2) { //如果上次遍历的元素递减
-                    flag = 0;
-                    listRanges.add(new LMaxRangeTwo(left, previous));
-                } else {
-                    listRanges.add(new Range(left));
-                }
-                if (!iterator.hasNext()) { //如果当前元素是最后一个
-                    listRanges.add(new Range(now));break;
-                }
-                previous = now; //把 上一个元素值 设置成 当前元素值
-                left = now; //把 当前元素值 赋值给 左边界
-            }
-        }
-        return listRanges;
+        return out;
     }
 }
@@ -1,5 +1,6 @@
 package org.flaac3.ColorfulPrinter.Utils.Selector;
 
+import org.flaac3.ColorfulPrinter.Utils.IntBitmap;
 import org.flaac3.ColorfulPrinter.Utils.Selector.Range.LMaxRangeTwo;
 import org.flaac3.ColorfulPrinter.Utils.Selector.Range.LMinRangeTwo;
 import org.flaac3.ColorfulPrinter.Utils.Selector.Range.Range;
@@ -13,32 +14,35 @@ public class SortSelector extends Selector {
      * <pre>{@code new int[][]{{0},{2,5}}} //正确，因为 {@code {0,2,3,4,5}} 是按从小到大顺序排列的</pre>
      * */
     public SortSelector(int[][] ranges) {
-        super(toListRanges(ranges));
+        super(ranges);
     }
     public SortSelector(List<Range> ranges) {
         super(ranges);
     }
 
     /**
-     * 传入一个取值范围数组（列表），去重并且按 从小到大 排序后再根据对应迭代器实例化 SortSelector
+     * 传入一个取值范围数组（列表），去重并且按 从小到大 排序后实例化 SortSelector，只按范围的端点排序合并
      * */
     public static SortSelector of (int[][] ranges) {
-        return create(toLinkedHashSet(ranges));
+        return of(toRangeList(ranges));
     }
     public static SortSelector of (List<Range> ranges) {
-        return create(toLinkedHashSet(ranges));
+        var nonNull = new ArrayList<Range>(ranges.size());
+        for (Range range : ranges) if (range != null) nonNull.add(range);
+        var intervals = Intervals.of(nonNull);
+        var sortSelector = new SortSelector(intervals.toSortedList()); //创建一个 SortSelector
+        sortSelector.setSize((int) intervals.total()); //设置元素总数
+        return sortSelector;
     }
     /**
-     * 创建一个仅包含了大小信息（size）的 SortSelector
+     * 用压缩位图中的元素实例化 SortSelector，连续的元素合并成一个范围
      * */
-    private static SortSelector create (LinkedHashSet<Integer> linkedHashSet) {
-        var listRanges = toListRanges(
-                //这时接受到的 iterator 是按 从小到大 的顺序排列
-                linkedHashSet.stream().sorted(Integer::compareTo).iterator()
-        );
-        var sortSelector = new SortSelector(listRanges); //创建一个 SortSelector
-        sortSelector.setSize(linkedHashSet.size()); //设置元素总数
-        return sortSelector; //返回 SortSelector
+    public static SortSelector of (IntBitmap bitmap) {
+        var out = new ArrayList<Range>();
+        bitmap.forEachRun((start, end) -> out.add(start == end ? new Range(start) : new LMinRangeTwo(start, end)));
+        var sortSelector = new SortSelector(out);
+        sortSelector.setSize(bitmap.cardinality());
+        return sortSelector;
     }
 
     /**
@@ -48,10 +52,9 @@ public class SortSelector extends Selector {
         if (index < 0 || index >= size())
             throw new IndexOutOfBoundsException("get 方法的 index 参数超出范围，或者 SortSelector 本身为空");
 
-        var indexList = getIndexList(); //索引列表
-        var i = search(index, indexList.size() - 1); //二分法查找 indexList 中对应的下标
+        var i = search(index, ranges.size() - 1); //二分法查找索引列表中对应的下标
 
-        return ranges.get(i).left() + (index - indexList.get(i));
+        return ranges.left(i) + (index - ranges.prefix(i));
     }
 
     /**
@@ -167,68 +170,26 @@ public class SortSelector extends Selector {
     }
 
     /**
-     * 重写父类的 sort 方法，如果向上转型成父类后调用此方法可以直接返回，不用创建子类的新对象
+     * 元素从小到大排列，IntStream 可以利用这一点
      * */
     @Override
-    public SortSelector sort() {
-        return this;
+    protected int spliteratorCharacteristics () {
+        return super.spliteratorCharacteristics() | Spliterator.SORTED;
     }
 
     /**
-     * a 和 b 是两个已经从小到大排好序的迭代器（各自的元素不重复），合并成一个从小到大排好序的集合的迭代器（元素不重复）
+     * 重写父类的 sort 方法，如果向上转型成父类后调用此方法可以直接返回，不用创建子类的新对象
      * */
-    private static Iterator<Integer> merge (Iterator<Integer> a, Iterator<Integer> b) {
-        return new Iterator<>() {
-            private Integer aNum = null;
-            private Integer bNum = null;
-            private boolean has = a.hasNext() || b.hasNext(); //只要 a 或 b 中至少有一个还有元素，则 has 为 true
-
-            @Override
-            public boolean hasNext() {
-                return has;
-            }
-
-            @Override
-            public Integer next() {
-                Integer temp;
-
-                if (aNum == null && a.hasNext()) {
-                    aNum = a.next();
-                }
-                if (bNum == null && b.hasNext()) {
-                    bNum = b.next();
-                }
-
-                if (aNum == null) { //如果aNum为null，说明a迭代器已经遍历完，返回bNum，并将bNum置为null，更新has变量
-                    temp = bNum; bNum = null; has = b.hasNext();
-                } else {
-                    if (bNum == null) { //如果bNum为null，说明b迭代器已经遍历完，返回aNum，并将aNum置为null，更新has变量
-                        temp = aNum; aNum = null; has = a.hasNext();
-                    } else {
-                        if (aNum < bNum) {
-                            temp = aNum; aNum = null;
-                        } else if (aNum.equals(bNum)) {
-                            //如果aNum等于bNum，则只返回一个元素（这里选择返回aNum），并将aNum和bNum都置为null，更新has变量
-                            temp = aNum; aNum = null; bNum = null;
-                            has = a.hasNext() || b.hasNext(); //因为这里一次性移除了两个值，要提前判断两个迭代器之后有没有值
-                        } else {
-                            temp = bNum; bNum = null;
-                        }
-                    }
-                }
-                return temp;
-            }
-        };
+    @Override
+    public SortSelector sort() {
+        return this;
     }
 
     /**
      * 合并两个 SortSelector 成一个新的 SortSelector，取并集
      * */
     public SortSelector plus (SortSelector sortSelector) {
-        var listRanges = toListRanges(merge(
-                iterator(), sortSelector.iterator()
-        ));
-        return new SortSelector(listRanges);
+        return sweep(ranges, sortSelector.ranges, UNION);
     }
 
     /**
@@ -236,123 +197,85 @@ public class SortSelector extends Selector {
      * */
     @Override
     public SortSelector minus (Selector selector) {
-        var hashSet = toLinkedHashSet(ranges);
-        hashSet.removeAll(toLinkedHashSet(selector.ranges));
-        var out = new SortSelector(toListRanges(hashSet.iterator()));
-        out.setSize(hashSet.size());
-        return out;
-    }
-
-    /**
-     * a 和 b 是两个已经从小到大排好序的迭代器（各自的元素不重复），返回从 a 中剔除 b 中含有的元素的迭代器
-     * */
-    private static Iterator<Integer> remove (Iterator<Integer> a, Iterator<Integer> b) {
-        return new Iterator<>() {
-            private Integer next;
-            private Integer previousBNum = null;
-
-            /*
-            * 如果直接写成 private Integer next = getNext(); 因为 previousBNum 此时还没有定义，
-            * 所以 getNext() 方法中用到 previousBNum 的代码就会被忽略？离谱的是还不会报错。可以用{}构造代码块
-            * 来延迟调用 getNext() 方法，或者将定义 previousBNum 的语句挪到前面来解决问题。
-            * */
-            { next = getNext(); }
-
-            private Integer getNext () {
-                loopA: while (a.hasNext()) { var aNum = a.next();
-                    if (previousBNum != null) {
-                        if (aNum < previousBNum) return aNum;
-                        else if (aNum.equals(previousBNum)) {
-                            previousBNum = null; continue;
-                        } else previousBNum = null;
-                    }
-                    while (b.hasNext()) { var bNum = b.next();
-                        if (bNum.equals(aNum)) continue loopA;
-                        else if (bNum > aNum) {
-                            previousBNum = bNum; return aNum;
-                        }
-                    }
-                    return aNum;
-                }
-                return null;
-            }
-
-            @Override
-            public boolean hasNext () {
-                return next != null;
-            }
-
-            @Override
-            public Integer next () {
-                var temp = next; next = getNext(); return temp;
-            }
-        };
+        if (selector instanceof SortSelector sortSelector) return minus(sortSelector);
+        var builder = new RangeBuilder();
+        Intervals.of(selector.ranges).subtractAll(ranges, builder); //selector 是无序的，先整理一遍
+        return create(builder);
     }
 
     /**
      * 减去另一个 SortSelector 成一个新的 SortSelector，取差集
      * */
     public SortSelector minus (SortSelector sortSelector) {
-        var listRanges = toListRanges(remove(
-                iterator(), sortSelector.iterator()
-        ));
-        return new SortSelector(listRanges);
+        return sweep(ranges, sortSelector.ranges, DIFFERENCE);
     }
 
     /**
-     * 用 stream流 的方式把 范围数组 转换成 范围列表（必须保证传入的 range 二维数组符合要求）
+     * 和另一个 SortSelector 取交集，返回新的 SortSelector
      * */
-    private static ArrayList<Range> toListRanges (int[][] ranges) {
-        var out = new ArrayList<Range>();
-        Arrays.stream(ranges).forEach(each -> {
-            if (each.length == 1)
-                out.add(new Range(each[0]));
-            else
-                out.add(new LMinRangeTwo(each[0], each[1]));
-        });
-        return out;
+    public SortSelector intersect (SortSelector sortSelector) {
+        return sweep(ranges, sortSelector.ranges, INTERSECTION);
     }
 
+    private static final int UNION = 0, DIFFERENCE = 1, INTERSECTION = 2;
+
     /**
-     * 将一串从小到大排列的整数根据连续性分组成范围列表
+     * 同时从前往后扫描两个从小到大的范围列表，只比较范围的端点，复杂度是 O(a.size() + b.size())，和元素数量无关 <br/>
+     * 范围之间可以相邻，结果里相邻的部分会合并成一个范围
      * */
-    @SuppressWarnings("Duplicates")
-    private static ArrayList<Range> toListRanges (Iterator<Integer> iterator) {
-        ArrayList<Range> listRanges = new ArrayList<>(); //范围列表
-        byte flag = 0; //0:当前元素不连续，1:当前元素递增
-        int previous = 0; //上一个元素值
-        int left = 0; //范围左边界
-
-        if (iterator.hasNext()) {
-            previous = iterator.next(); //首先拿出第一个元素
-            if (iterator.hasNext()) {
-                left = previous; //如果之后还有元素，则把 第一个元素值 赋值给 左边界
-            } else {
-                listRanges.add(new Range(previous));
-            }
-        }
-        while (iterator.hasNext()) { //从第二个元素开始遍历
-            int now = iterator.next(); //当前元素
-            if (now == previous + 1) {
-                flag = 1;
-                previous = now; //把 上一个元素值 设置成 当前元素值
-                if (!iterator.hasNext()) { //如果当前元素是最后一个
-                    listRanges.add(new LMinRangeTwo(left, previous));break;
+    private static SortSelector sweep (RangeList a, RangeList b, int operation) {
+        var builder = new RangeBuilder();
+        int i = 0, j = 0;
+        switch (operation) {
+            case UNION -> {
+                long low = 0, high = -1; //当前正在合并的范围，high 小于 low 表示还没有
+                while (i < a.size() || j < b.size()) {
+                    int left, right;
+                    if (j == b.size() || i < a.size() && a.left(i) <= b.left(j)) {
+                        left = a.left(i); right = a.right(i++);
+                    } else {
+                        left = b.left(j); right = b.right(j++);
+                    }
+                    if (high >= low && left <= high + 1) {
+                        high = Math.max(high, right);
+                    } else {
+                        if (high >= low) builder.add((int) low, (int) high);
+                        low = left; high = right;
+                    }
                 }
-            } else {
-                if (flag == 1) { //如果上次遍历的元素递增
-                    flag = 0;
-                    listRanges.add(new LMinRangeTwo(left, previous));
-                } else {
-                    listRanges.add(new Range(left));
+                if (high >= low) builder.add((int) low, (int) high);
+            }
+            case DIFFERENCE -> {
+                for (; i < a.size(); i++) {
+                    int right = a.right(i);
+                    long cursor = a.left(i); //当前范围中还没有处理的第一个元素
+                    while (j < b.size() && b.right(j) < cursor) j++;
+                    while (j < b.size() && b.left(j) <= right) {
+                        if (b.left(j) > cursor) builder.add((int) cursor, b.left(j) - 1);
+                        cursor = (long) b.right(j) + 1;
+                        if (b.right(j) > right) break; //b 中的这个范围还可能覆盖 a 中的下一个范围
+                        j++;
+                    }
+                    if (cursor <= right) builder.add((int) cursor, right);
                 }
-                if (!iterator.hasNext()) { //如果当前元素是最后一个
-                    listRanges.add(new Range(now));break;
+            }
+            default -> {
+                while (i < a.size() && j < b.size()) {
+                    int low = Math.max(a.left(i), b.left(j)), high = Math.min(a.right(i), b.right(j));
+                    if (low <= high) builder.add(low, high);
+                    if (a.right(i) < b.right(j)) i++; else j++;
                 }
-                previous = now; //把 上一个元素值 设置成 当前元素值
-                left = now; //把 当前元素值 赋值给 左边界
             }
         }
-        return listRanges;
+        return create(builder);
+    }
+
+    /**
+     * 创建一个包含了大小信息（size）的 SortSelector
+     * */
+    private static SortSelector create (RangeBuilder builder) {
+        var sortSelector = new SortSelector(builder.toList());
+        sortSelector.setSize(builder.size());
+        return sortSelector;
     }
 }
@@ -0,0 +1,54 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.flaac3.ColorfulPrinter.Render.ColorProfile;
+import org.flaac3.ColorfulPrinter.Render.RenderMode;
+import org.flaac3.ColorfulPrinter.Store.ChunkedTextStore;
+import org.flaac3.ColorfulPrinter.Store.ColumnarTextStore;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * writeTo(OutputStream)、writeTo(WritableByteChannel) 直接输出的字节，每一步编辑之后都要和 toColorString().getBytes(UTF_8) 完全一样，
+ * 文本中包括多字节字符、代理对和落单的代理字符（getBytes 换成 '?'）
+ * */
+class ByteOutputTest {
+    @Test
+    void bytesMatchGetBytes () throws IOException {
+        for (int round = 0; round < 200; round++) {
+            var edits = new RandomEdits(2000 + round);
+            var renderMode = round % 2 == 0 ? RenderMode.PLAIN : RenderMode.MINIMAL;
+            var colorProfile = ColorProfile.values()[round % ColorProfile.values().length];
+            var printers = List.of(
+                    new Printer(RandomEdits.TEMPLATE),
+                    new Printer(new ChunkedTextStore(), RandomEdits.TEMPLATE),
+                    new Printer(new ColumnarTextStore(), RandomEdits.TEMPLATE)
+            );
+            for (var printer : printers) printer.setRenderMode(renderMode).setColorProfile(colorProfile);
+
+            for (int step = 0; step < 60; step++) {
+                edits.step(printers);
+                boolean resetAtEnd = step % 3 != 0;
+                for (int k = 0; k < printers.size(); k++) {
+                    var printer = printers.get(k);
+                    var expected = printer.toColorString(resetAtEnd).getBytes(StandardCharsets.UTF_8);
+                    var message = "第 " + round + " 轮第 " + step + " 步，Printer " + k;
+
+                    var stream = new ByteArrayOutputStream();
+                    printer.writeTo(stream, resetAtEnd);
+                    assertArrayEquals(expected, stream.toByteArray(), message);
+
+                    var channelBytes = new ByteArrayOutputStream();
+                    printer.writeTo(Channels.newChannel(channelBytes), resetAtEnd);
+                    assertArrayEquals(expected, channelBytes.toByteArray(), message);
+                }
+            }
+        }
+    }
+}
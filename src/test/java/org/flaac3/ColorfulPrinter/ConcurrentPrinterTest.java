@@ -0,0 +1,131 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多个线程同时 append、appendByTemplate，同时另一个线程反复读取快照：
+ * 不丢内容、每个线程的内容保持追加顺序、先返回的追加排在后开始的追加之前、模板编号按合并后的顺序递增，
+ * 后面的快照总是在前面的快照之后继续追加
+ * */
+class ConcurrentPrinterTest {
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 300;
+
+    @Test
+    void concurrentAppendsKeepOrderAndTemplateNumbering () throws InterruptedException {
+        var printer = new ConcurrentPrinter(4);
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(THREADS);
+        var error = new AtomicReference<Throwable>();
+        var clock = new AtomicLong(); //追加开始和返回时各取一次，用来检查不同线程之间的先后顺序
+        var returned = new long[THREADS][PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        //文本格式是 种类:线程:序号:开始时间，T 表示通过模板追加
+                        var text = thread + ":" + i + ":" + clock.incrementAndGet();
+                        if (i % 2 == 0) printer.append(Color.GREEN, "A:" + text);
+                        else printer.appendByTemplate("T:" + text);
+                        returned[thread][i] = clock.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        start.countDown();
+        List<String> previousTexts = List.of();
+        String previousColorString = "";
+        int snapshots = 0;
+        while (true) {
+            boolean finished = done.getCount() == 0; //写完之后再读一次，这次必须是全部内容
+            var texts = new ArrayList<String>();
+            printer.withSnapshot(p -> {
+                texts.addAll(texts(p));
+                checkTemplateIndexes(p, texts);
+            });
+            checkThreadOrder(texts);
+            assertEquals(previousTexts, texts.subList(0, previousTexts.size()), "之前的快照应该是之后快照的开头");
+            previousTexts = texts;
+
+            var colorString = printer.toColorString(false);
+            assertTrue(colorString.startsWith(previousColorString), "之前渲染的内容不应该改变");
+            previousColorString = colorString;
+            snapshots++;
+            if (finished) break;
+        }
+        assertNull(error.get());
+        assertEquals(THREADS * PER_THREAD, previousTexts.size(), "追加的内容不应该丢失");
+        long maxStarted = 0; //排在前面的追加中最晚的开始时间，后面的追加不能在它开始之前就已经返回
+        for (var text : previousTexts) {
+            var parts = text.split(":");
+            int thread = Integer.parseInt(parts[1]), i = Integer.parseInt(parts[2]);
+            assertTrue(returned[thread][i] > maxStarted, "排在后面的 " + text + " 在前面的追加开始之前就已经返回");
+            maxStarted = Math.max(maxStarted, Long.parseLong(parts[3]));
+        }
+        assertTrue(snapshots > 1);
+    }
+
+    @Test
+    void clearDropsMergedAndPendingEntries () {
+        var printer = new ConcurrentPrinter();
+        printer.append("A:0:0:0");
+        printer.toColorString();
+        printer.appendByTemplate("T:0:1:0");
+        printer.clear();
+        printer.appendByTemplate("T:0:2:0");
+        printer.withSnapshot(p -> {
+            assertEquals(List.of("T:0:2:0"), texts(p));
+            assertEquals(1, p.findByTemplateIndex(0).size());
+        });
+    }
+
+    private static List<String> texts (Printer printer) {
+        var texts = new ArrayList<String>();
+        printer.select(printer.find(":"), editor -> texts.addAll(editor.getText()));
+        return texts;
+    }
+
+    /**
+     * 每个线程的内容按序号递增
+     * */
+    private static void checkThreadOrder (List<String> texts) {
+        var last = new int[THREADS];
+        Arrays.fill(last, -1);
+        for (var text : texts) {
+            var parts = text.split(":");
+            int thread = Integer.parseInt(parts[1]), i = Integer.parseInt(parts[2]);
+            assertEquals(last[thread] + 1, i, "线程 " + thread + " 的内容顺序不对：" + text);
+            last[thread] = i;
+        }
+    }
+
+    /**
+     * 第 k 个通过模板追加的 Text 的编号是 k
+     * */
+    private static void checkTemplateIndexes (Printer printer, List<String> texts) {
+        int k = 0;
+        for (int position = 0; position < texts.size(); position++) {
+            if (!texts.get(position).startsWith("T:")) continue;
+            assertArrayEquals(new int[]{position}, printer.findByTemplateIndex(k).toIntArray(), "模板编号 " + k);
+            k++;
+        }
+        assertEquals(0, printer.findByTemplateIndex(k).size());
+    }
+}
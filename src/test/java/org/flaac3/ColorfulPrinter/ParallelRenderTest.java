@@ -0,0 +1,50 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.flaac3.ColorfulPrinter.Render.ColorProfile;
+import org.flaac3.ColorfulPrinter.Render.ParallelRenderer;
+import org.flaac3.ColorfulPrinter.Render.RenderMode;
+import org.flaac3.ColorfulPrinter.Store.ColumnarTextStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并行渲染每一步编辑之后都要和顺序渲染完全一样。threshold 设为 1，几千个 Text 会切成好几段，编辑会不断移动段与段之间的边界
+ * */
+class ParallelRenderTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutdown () {
+        POOL.shutdown();
+    }
+
+    @Test
+    void parallelOutputMatchesSequentialOutput () {
+        for (int round = 0; round < 20; round++) {
+            var edits = new RandomEdits(1000 + round);
+            var renderMode = round % 2 == 0 ? RenderMode.PLAIN : RenderMode.MINIMAL;
+            var colorProfile = ColorProfile.values()[round % ColorProfile.values().length];
+            var sequential = new Printer(RandomEdits.TEMPLATE);
+            var printers = List.of(
+                    sequential,
+                    new Printer(RandomEdits.TEMPLATE).setParallelRenderer(new ParallelRenderer(POOL, 1)),
+                    new Printer(new ColumnarTextStore(), RandomEdits.TEMPLATE).setParallelRenderer(new ParallelRenderer(POOL, 1))
+            );
+            for (var printer : printers) printer.setRenderMode(renderMode).setColorProfile(colorProfile);
+
+            for (int i = 0; i < 3000; i++) edits.append(printers);
+            for (int step = 0; step < 40; step++) {
+                edits.step(printers);
+                boolean resetAtEnd = step % 3 != 0;
+                var expected = sequential.toColorString(resetAtEnd);
+                for (int k = 1; k < printers.size(); k++)
+                    assertEquals(expected, printers.get(k).toColorString(resetAtEnd), "第 " + round + " 轮第 " + step + " 步，Printer " + k);
+            }
+        }
+    }
+}
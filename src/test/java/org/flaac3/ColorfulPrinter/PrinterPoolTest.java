@@ -0,0 +1,57 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * PrinterPool 借出、追加、渲染、放回的循环：预热之后每行日志分配的内存应该很少（不用池时每行几百字节）
+ * */
+class PrinterPoolTest {
+    private static final int SEGMENTS = 8;
+
+    private final StringBuilder out = new StringBuilder(4096);
+
+    /**
+     * 模拟一行日志：从池中借一个 Printer，交替颜色追加若干段，渲染到同一个 StringBuilder
+     * */
+    private int line () {
+        try (var lease = PrinterPool.acquire()) {
+            var printer = lease.printer();
+            for (int i = 0; i < SEGMENTS; i++) printer.appendString((i & 1) == 0 ? Color.GREEN : Color.BLUE, null, "segment");
+            out.setLength(0);
+            printer.writeTo(out);
+            return out.length();
+        }
+    }
+
+    @Test
+    void pooledLinesBarelyAllocate () {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+        int length = line();
+        for (int i = 0; i < 50_000; i++) assertEquals(length, line()); //预热
+        int lines = 100_000;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < lines; i++) assertEquals(length, line());
+        long perLine = (threads.getThreadAllocatedBytes(threadId) - before) / lines;
+        assertTrue(perLine < 128, "每行分配了 " + perLine + " 字节");
+    }
+
+    @Test
+    void leaseCannotBeUsedAfterClose () {
+        var lease = PrinterPool.acquire();
+        lease.printer().appendString("text");
+        lease.close();
+        lease.close(); //重复 close 没有效果
+        assertThrows(IllegalStateException.class, lease::printer);
+        try (var next = PrinterPool.acquire()) {
+            assertEquals("", next.printer().toColorString(false), "放回的 Printer 应该是空的");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Utils.Selector.SortSelector;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * select 的边界情况：find 没有找到时得到空的选择器，交给 select 和 TextEditor 都应该什么也不做
+ * */
+class PrinterSelectTest {
+    private static Printer printer () {
+        return new Printer().append(Color.RED, "INFO start ").append(Color.GREEN, "INFO done");
+    }
+
+    @Test
+    void selectEmptyFindIsNoOp () {
+        var printer = printer();
+        var expected = printer.toColorString();
+        var called = new boolean[1];
+        printer.select(printer.find("ERROR"), editor -> called[0] = true);
+        printer.select(printer.findRegex("ERR(OR)?"), editor -> called[0] = true);
+        printer.select(printer.findByTextColor(Color.BLUE), editor -> called[0] = true);
+        assertFalse(called[0], "空的选择器不应该调用 textEditWork");
+        assertEquals(expected, printer.toColorString());
+    }
+
+    @Test
+    void selectEmptyLazySelectorIsNoOp () {
+        var printer = printer();
+        var expected = printer.toColorString();
+        printer.select(printer.All().lazy().filter(i -> i > 5), editor -> editor.delete());
+        assertEquals(expected, printer.toColorString());
+    }
+
+    @Test
+    void editorOnEmptySelectorIsNoOp () {
+        var printer = printer();
+        var expected = printer.toColorString();
+        var editor = printer.new TextEditor(printer.find("ERROR"));
+        editor.insert(Color.BLUE, "+");
+        editor.delete();
+        editor.delete(false);
+        editor.setColors(Color.BLUE, null);
+        editor.setText("x");
+        assertEquals(List.of(), editor.getText());
+        assertEquals(expected, printer.toColorString());
+    }
+
+    @Test
+    void selectOutOfRangeStillThrows () {
+        var printer = printer();
+        assertThrows(IllegalArgumentException.class, () -> printer.select(new SortSelector(new int[][]{{5}}), editor -> editor.delete()));
+    }
+
+    @Test
+    void selectFoundTexts () {
+        var printer = printer();
+        printer.select(printer.find("done"), editor -> editor.setText("INFO finished"));
+        printer.select(printer.find("start"), editor -> editor.delete());
+        printer.select(printer.All(), editor -> assertEquals(List.of("INFO finished"), editor.getText()));
+        printer.select(printer.find("finished"), editor -> editor.delete());
+        assertEquals(0, printer.find("INFO").size());
+    }
+}
@@ -0,0 +1,77 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * snapshot 复制还没有格式化的 Text 时，原来的 Printer 和所有快照共享格式化的结果，supplier 只调用一次
+ * */
+class PrinterSnapshotTest {
+    @Test
+    void lazySupplierRunsOnceAcrossSnapshots () {
+        var calls = new AtomicInteger();
+        var printer = new Printer().appendLazy(() -> "x" + calls.incrementAndGet());
+        var first = printer.snapshot();
+        var second = printer.snapshot();
+        var expected = printer.toColorString();
+        assertTrue(expected.contains("x1"));
+        assertEquals(expected, first.toColorString());
+        assertEquals(expected, second.toColorString());
+        assertEquals(expected, printer.snapshot().snapshot().toColorString());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void snapshotRenderedFirstSharesResultWithOriginal () {
+        var calls = new AtomicInteger();
+        var printer = new Printer().appendLazy(() -> "x" + calls.incrementAndGet()).appendLazyArgs(null, null, "y", calls);
+        var snapshot = printer.snapshot();
+        var expected = snapshot.toColorString(); //这次由快照先格式化
+        assertEquals(expected, printer.toColorString());
+        assertEquals(expected, printer.snapshot().toColorString());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void snapshotsRenderedConcurrentlyRunSupplierOnce () throws InterruptedException {
+        var calls = new AtomicInteger();
+        var printer = new Printer();
+        for (int i = 0; i < 100; i++) printer.appendLazy(() -> "x" + calls.incrementAndGet());
+        var start = new CountDownLatch(1);
+        var results = new String[8];
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < results.length; t++) {
+            var snapshot = printer.snapshot();
+            int k = t;
+            var thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                results[k] = snapshot.toColorString();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (var thread : threads) thread.join();
+        var expected = printer.toColorString();
+        for (var result : results) assertEquals(expected, result);
+        assertEquals(100, calls.get());
+    }
+
+    @Test
+    void editingOriginalDoesNotChangeSnapshot () {
+        var printer = new Printer().appendLazy(() -> "before");
+        var snapshot = printer.snapshot();
+        printer.select(printer.All(), editor -> editor.setText("after"));
+        assertTrue(snapshot.toColorString().contains("before"));
+        assertTrue(printer.toColorString().contains("after"));
+    }
+}
@@ -0,0 +1,114 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Model.TextColors;
+import org.flaac3.ColorfulPrinter.Utils.Selector.SortSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 随机编辑 Printer 的测试工具：每一步的操作、颜色、文本、选择的范围都只生成一次，同时施加到所有 Printer 上，
+ * 用来对照不同设置（渲染缓存、并行渲染、字节输出）下的结果
+ * */
+final class RandomEdits {
+    static final Template TEMPLATE = i -> new TextColors(i % 3 == 0 ? null : Color.of(i % 5), i % 4 == 0 ? null : Color.of(i % 7 + 16));
+
+    /**
+     * 文本中会出现的字符：ASCII、两字节和三字节的 UTF-8、完整的代理对、落单的高代理和低代理
+     * */
+    private static final String[] PIECES = {"a", "Z", "0", " ", "é", "中", "€", "😀", "\ud83d", "\ude00", "log", "ERROR"};
+
+    private final Random random;
+
+    RandomEdits (long seed) {
+        random = new Random(seed);
+    }
+
+    String text () {
+        var s = new StringBuilder();
+        for (int i = random.nextInt(6); i > 0; i--) s.append(PIECES[random.nextInt(PIECES.length)]);
+        return s.toString();
+    }
+
+    Color color () {
+        return switch (random.nextInt(5)) {
+            case 0 -> null;
+            case 1 -> Color.DEFAULT;
+            case 2 -> Color.of(random.nextInt(16));
+            case 3 -> Color.of(random.nextInt(256));
+            default -> Color.rgb(random.nextInt(1 << 24));
+        };
+    }
+
+    /**
+     * 随机追加一个 Text
+     * */
+    void append (List<Printer> printers) {
+        var text = text();
+        var textColor = color();
+        var backGroundColor = color();
+        int kind = random.nextInt(6);
+        for (var printer : printers) {
+            switch (kind) {
+                case 0, 1 -> printer.appendByTemplate(text);
+                case 2 -> printer.appendAtPre(text);
+                case 3 -> printer.appendAtPreIfSameColor(textColor, backGroundColor, text);
+                case 4 -> printer.appendLazy(textColor, backGroundColor, () -> text);
+                default -> printer.append(textColor, backGroundColor, text);
+            }
+        }
+    }
+
+    /**
+     * 随机追加或者通过 TextEditor 修改（设置颜色、替换文本、插入、删除），偶尔清空
+     * */
+    void step (List<Printer> printers) {
+        int size = size(printers.get(0));
+        if (size < 2 || random.nextInt(3) == 0) {
+            append(printers);
+            return;
+        }
+        var selector = selector(size);
+        var textColor = color();
+        var backGroundColor = color();
+        var text = text();
+        boolean resetColor = random.nextBoolean();
+        int kind = random.nextInt(20);
+        for (var printer : printers) {
+            switch (kind % 6) {
+                case 0 -> printer.select(selector, editor -> editor.setColors(textColor, backGroundColor));
+                case 1 -> printer.select(selector, editor -> editor.setText(text));
+                case 2 -> printer.select(selector, editor -> editor.insert(textColor, backGroundColor, text).insert(text));
+                case 3 -> printer.select(selector, editor -> {
+                    if (selector.size() < size) editor.delete(resetColor);
+                });
+                case 4 -> printer.select(selector, editor -> {
+                    editor.replace("a", text);
+                    editor.replaceAll("[0-9]", "#");
+                });
+                default -> {
+                    if (kind == 5) printer.clear(); else printer.appendByTemplate(text);
+                }
+            }
+        }
+    }
+
+    /**
+     * 随机选择若干段互不相邻的范围，都在 [0, size) 之中
+     * */
+    private SortSelector selector (int size) {
+        var ranges = new ArrayList<int[]>();
+        for (int i = random.nextInt(size); i < size; i += 2 + random.nextInt(Math.max(size / 4, 4))) {
+            int end = Math.min(size - 1, i + random.nextInt(4));
+            ranges.add(end > i ? new int[]{i, end} : new int[]{i});
+            i = end;
+        }
+        return new SortSelector(ranges.toArray(new int[0][]));
+    }
+
+    static int size (Printer printer) {
+        return printer.find("").size();
+    }
+}
@@ -0,0 +1,192 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Printer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AsyncConsoleSink：三种 Backpressure、flush、close、渲染出错时跳过出错的快照，以及 main 返回时 shutdown hook 写完队列
+ * */
+class AsyncConsoleSinkTest {
+    /**
+     * 第一次写出时停住，直到 release，这样后台线程卡在第一批上，后面的快照都留在队列里
+     * */
+    private static final class GatedOutput extends ByteArrayOutputStream {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void write (byte[] bytes, int offset, int length) {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                super.write(bytes, offset, length);
+            }
+        }
+
+        synchronized String text () {
+            return toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Printer line (String text) {
+        return new Printer().append(Color.GREEN, text);
+    }
+
+    private static String expected (String... texts) {
+        var s = new StringBuilder();
+        for (var text : texts) s.append(line(text).toColorString(false));
+        return s.toString();
+    }
+
+    /**
+     * 放进 A，等后台线程卡在写出 A 上，再把容量为 2 的队列用 B、C 填满
+     * */
+    private static GatedOutput fillQueue (AsyncConsoleSink sink, GatedOutput out) throws InterruptedException {
+        assertTrue(sink.submit(line("A"), false, false));
+        assertTrue(out.writing.await(10, TimeUnit.SECONDS));
+        assertTrue(sink.submit(line("B"), false, false));
+        assertTrue(sink.submit(line("C"), false, false));
+        return out;
+    }
+
+    @Test
+    void dropDiscardsNewSnapshots () throws Exception {
+        var out = new GatedOutput();
+        try (var sink = new AsyncConsoleSink(out, 2, AsyncConsoleSink.Backpressure.DROP)) {
+            fillQueue(sink, out);
+            assertFalse(sink.submit(line("D"), false, false));
+            assertEquals(1, sink.getDroppedCount());
+            out.release.countDown();
+            sink.flush();
+            assertEquals(expected("A", "B", "C"), out.text());
+        }
+    }
+
+    @Test
+    void dropOldestDiscardsQueuedSnapshots () throws Exception {
+        var out = new GatedOutput();
+        try (var sink = new AsyncConsoleSink(out, 2, AsyncConsoleSink.Backpressure.DROP_OLDEST)) {
+            fillQueue(sink, out);
+            assertTrue(sink.submit(line("D"), false, false));
+            assertEquals(1, sink.getDroppedCount());
+            out.release.countDown();
+            sink.flush();
+            assertEquals(expected("A", "C", "D"), out.text());
+        }
+    }
+
+    @Test
+    void blockWaitsForFreeSlot () throws Exception {
+        var out = new GatedOutput();
+        try (var sink = new AsyncConsoleSink(out, 2, AsyncConsoleSink.Backpressure.BLOCK)) {
+            fillQueue(sink, out);
+            var submitted = new CountDownLatch(1);
+            var producer = new Thread(() -> {
+                sink.submit(line("D"), false, false);
+                submitted.countDown();
+            });
+            producer.start();
+            assertFalse(submitted.await(200, TimeUnit.MILLISECONDS), "队列满时 submit 应该等待");
+            out.release.countDown();
+            assertTrue(submitted.await(10, TimeUnit.SECONDS));
+            producer.join();
+            sink.flush();
+            assertEquals(0, sink.getDroppedCount());
+            assertEquals(expected("A", "B", "C", "D"), out.text());
+        }
+    }
+
+    @Test
+    void flushWaitsForEverySubmittedSnapshot () throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var sink = new AsyncConsoleSink(out, 4, AsyncConsoleSink.Backpressure.BLOCK)) {
+            var s = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                var printer = line("line " + i);
+                printer.println(sink, true);
+                s.append(printer.toColorString(true)).append(System.lineSeparator());
+            }
+            sink.flush();
+            assertEquals(s.toString(), out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void closeWritesQueueAndRejectsNewSnapshots () throws IOException {
+        var out = new ByteArrayOutputStream();
+        var sink = new AsyncConsoleSink(out, 16, AsyncConsoleSink.Backpressure.BLOCK);
+        for (var text : new String[]{"A", "B", "C"}) sink.submit(line(text), false, false);
+        sink.close();
+        sink.close(); //重复 close 没有效果
+        assertEquals(expected("A", "B", "C"), out.toString(StandardCharsets.UTF_8));
+        assertThrows(IllegalStateException.class, () -> sink.submit(line("D"), false, false));
+    }
+
+    @Test
+    void failedSnapshotIsSkippedAndReported () throws Exception {
+        var out = new GatedOutput();
+        try (var sink = new AsyncConsoleSink(out, 8, AsyncConsoleSink.Backpressure.BLOCK)) {
+            fillQueue(sink, out); //A 单独一批，B、C 和出错的快照、D 在同一批
+            sink.submit(new Printer().appendLazy(() -> { throw new IllegalStateException("broken"); }), false, false);
+            sink.submit(line("D"), false, false);
+            out.release.countDown();
+            var e = assertThrows(IOException.class, sink::flush);
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertEquals(1, sink.getFailedCount());
+            var text = out.text();
+            assertTrue(text.startsWith(expected("A", "B", "C")), text);
+            assertTrue(text.endsWith(expected("D")), text);
+
+            sink.submit(line("E"), false, false);
+            sink.flush(); //异常只抛出一次
+            assertTrue(out.text().endsWith(expected("E")));
+        }
+    }
+
+    @Test
+    void shutdownHookWritesQueueWhenMainReturns () throws Exception {
+        var java = new File(System.getProperty("java.home"), "bin/java").getPath();
+        var process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ExitWithoutClose.class.getName())
+                .redirectErrorStream(true).start();
+        var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), output);
+        assertTrue(output.contains("last line 99"), output);
+    }
+
+    /**
+     * 子进程：打印之后不调用 close 直接从 main 返回。输出端每次写出都要等一会，main 返回时快照肯定还在队列里
+     * */
+    static final class ExitWithoutClose {
+        public static void main (String[] args) {
+            var slowOut = new FilterOutputStream(System.out) {
+                @Override
+                public void write (byte[] bytes, int offset, int length) throws IOException {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    out.write(bytes, offset, length);
+                }
+            };
+            var sink = new AsyncConsoleSink(slowOut, AsyncConsoleSink.DEFAULT_CAPACITY, AsyncConsoleSink.Backpressure.BLOCK);
+            for (int i = 0; i < 100; i++) new Printer().append(Color.GREEN, "last line " + i).println(sink);
+        }
+    }
+}
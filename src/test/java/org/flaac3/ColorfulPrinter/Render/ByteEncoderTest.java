@@ -0,0 +1,79 @@
+package org.flaac3.ColorfulPrinter.Render;
+
+import org.flaac3.ColorfulPrinter.Model.Color;
+import org.flaac3.ColorfulPrinter.Printer;
+import org.flaac3.ColorfulPrinter.Store.ColumnarTextStore;
+import org.flaac3.ColorfulPrinter.Template;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ByteEncoder 的 UTF-8 编码和 String.getBytes 对照：String 和其他 CharSequence 两条路径，缓冲区很小时跨越边界的字符，落单的代理字符
+ * */
+class ByteEncoderTest {
+    private static final char[] ALPHABET = {'a', 'Z', '0', ' ', '\n', 'é', 'ß', '中', '文', '€', '\ud83d', '\ude00'};
+
+    static String randomString (Random random, int maxLength) {
+        var chars = new char[random.nextInt(maxLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = random.nextInt(3) == 0 ? ALPHABET[random.nextInt(ALPHABET.length)] : (char) ('a' + random.nextInt(26));
+            if (random.nextInt(20) == 0 && i + 1 < chars.length) { //完整的代理对
+                chars[i] = '\ud83d';
+                chars[++i] = '\ude00';
+            }
+        }
+        return new String(chars);
+    }
+
+    @Test
+    void encodesLikeGetBytes () throws IOException {
+        var random = new Random(11);
+        for (int round = 0; round < 2000; round++) {
+            var text = randomString(random, 200);
+            var bufferSize = random.nextBoolean() ? 64 : ByteEncoder.DEFAULT_BUFFER_SIZE;
+            var expected = text.getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(expected, encode(text, bufferSize), text);
+            assertArrayEquals(expected, encode(new StringBuilder(text), bufferSize), text);
+            assertArrayEquals(expected, encode(CharBuffer.wrap(text), bufferSize), text);
+        }
+    }
+
+    private static byte[] encode (CharSequence text, int bufferSize) throws IOException {
+        var out = new ByteArrayOutputStream();
+        var encoder = new ByteEncoder(out, bufferSize);
+        if (text instanceof String str) encoder.text(str); else encoder.text(text);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    /**
+     * 列式容器中的文本直接从字符视图编码，输出字节时不再为每段文本生成 String
+     * */
+    @Test
+    void columnarStoreEncodesWithoutStrings () throws IOException {
+        int segments = 10_000;
+        var printer = new Printer(new ColumnarTextStore(segments), Template.DEFAULT_MESSAGE);
+        for (int i = 0; i < segments; i++) printer.append(i % 2 == 0 ? Color.GREEN : Color.BLUE, "segment " + i);
+        var expected = printer.toColorString().getBytes(StandardCharsets.UTF_8);
+        var out = new ByteArrayOutputStream();
+        printer.writeTo(out);
+        assertArrayEquals(expected, out.toByteArray());
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var sink = OutputStream.nullOutputStream();
+        for (int i = 0; i < 20; i++) printer.writeTo(sink); //预热
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 20; i++) printer.writeTo(sink);
+        long perSegment = (threads.getCurrentThreadAllocatedBytes() - before) / (20L * segments);
+        assertTrue(perSegment < 8, "每段文本分配了 " + perSegment + " 字节");
+    }
+}
@@ -0,0 +1,41 @@
+package org.flaac3.ColorfulPrinter;
+
+import org.flaac3.ColorfulPrinter.Render.ColorProfile;
+import org.flaac3.ColorfulPrinter.Render.RenderMode;
+import org.flaac3.ColorfulPrinter.Store.ChunkedTextStore;
+import org.flaac3.ColorfulPrinter.Store.ColumnarTextStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 打开渲染缓存的 Printer 每一步编辑之后都要和不带缓存的 Printer 输出完全一样。每一步都渲染一次，让缓存里总是有上一次的结果
+ * */
+class RenderCacheTest {
+    @Test
+    void cachedOutputMatchesPlainOutput () {
+        for (int round = 0; round < 300; round++) {
+            var edits = new RandomEdits(round);
+            var renderMode = round % 2 == 0 ? RenderMode.PLAIN : RenderMode.MINIMAL;
+            var colorProfile = ColorProfile.values()[round % ColorProfile.values().length];
+            var plain = new Printer(RandomEdits.TEMPLATE);
+            var printers = List.of(
+                    plain,
+                    new Printer(RandomEdits.TEMPLATE).setRenderCache(true),
+                    new Printer(new ChunkedTextStore(), RandomEdits.TEMPLATE).setRenderCache(true),
+                    new Printer(new ColumnarTextStore(), RandomEdits.TEMPLATE).setRenderCache(true).setSearchIndex(true)
+            );
+            for (var printer : printers) printer.setRenderMode(renderMode).setColorProfile(colorProfile);
+
+            for (int step = 0; step < 60; step++) {
+                edits.step(printers);
+                boolean resetAtEnd = step % 3 != 0;
+                var expected = plain.toColorString(resetAtEnd);
+                for (int k = 1; k < printers.size(); k++)
+                    assertEquals(expected, printers.get(k).toColorString(resetAtEnd), "第 " + round + " 轮第 " + step + " 步，Printer " + k);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.flaac3.ColorfulPrinter.Store;
+
+import org.flaac3.ColorfulPrinter.Model.Text;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 各个 TextStore 的批量插入、删除和普通的 List 操作随机交替，结果和 ArrayList 逐个插入、删除完全一样
+ * */
+class TextStoreTest {
+    private static final int ROUNDS = 200;
+
+    @Test
+    void arrayTextStore () {
+        check(ArrayTextStore::new);
+    }
+
+    @Test
+    void chunkedTextStore () {
+        check(ChunkedTextStore::new);
+    }
+
+    @Test
+    void columnarTextStore () {
+        check(ColumnarTextStore::new);
+    }
+
+    private static void check (Supplier<TextStore> factory) {
+        var random = new Random(20240611);
+        for (int round = 0; round < ROUNDS; round++) {
+            var store = factory.get();
+            var expected = new ArrayList<String>();
+            int next = 0;
+            int initial = random.nextInt(4) == 0 ? random.nextInt(3000) : random.nextInt(40);
+            for (int i = 0; i < initial; i++) {
+                store.add(text(next));
+                expected.add(String.valueOf(next++));
+            }
+            for (int step = 0; step < 30; step++) {
+                switch (random.nextInt(6)) {
+                    case 0, 1 -> { //批量插入
+                        var positions = randomPositions(random, expected.size() + 1);
+                        var texts = new Text[positions.length];
+                        for (int k = 0; k < positions.length; k++) texts[k] = text(next + k);
+                        store.insertAll(positions, texts);
+                        for (int k = positions.length - 1; k >= 0; k--) expected.add(positions[k], String.valueOf(next + k));
+                        next += positions.length;
+                    }
+                    case 2, 3 -> { //批量删除
+                        if (expected.isEmpty()) break;
+                        var ranges = randomRanges(random, expected.size());
+                        store.removeRanges(ranges[0], ranges[1]);
+                        for (int k = ranges[0].length - 1; k >= 0; k--) expected.subList(ranges[0][k], ranges[1][k]).clear();
+                    }
+                    case 4 -> { //单个插入、删除、修改
+                        int index = random.nextInt(expected.size() + 1);
+                        store.add(index, text(next));
+                        expected.add(index, String.valueOf(next++));
+                        index = random.nextInt(expected.size());
+                        store.remove(index);
+                        expected.remove(index);
+                        if (!expected.isEmpty()) {
+                            index = random.nextInt(expected.size());
+                            store.set(index, text(next));
+                            expected.set(index, String.valueOf(next++));
+                        }
+                    }
+                    default -> { //区间删除和追加
+                        if (!expected.isEmpty()) {
+                            int from = random.nextInt(expected.size()), to = from + random.nextInt(expected.size() - from + 1);
+                            store.subList(from, to).clear();
+                            expected.subList(from, to).clear();
+                        }
+                        store.add(text(next));
+                        expected.add(String.valueOf(next++));
+                    }
+                }
+                assertContent(expected, store);
+            }
+        }
+    }
+
+    private static Text text (int value) {
+        return Text.ofString(null, null, null, String.valueOf(value));
+    }
+
+    /**
+     * 从 [0, bound) 中随机取出从小到大、不重复的若干个位置，有时集中在一小段里
+     */
+    private static int[] randomPositions (Random random, int bound) {
+        var out = new ArrayList<Integer>();
+        int step = random.nextBoolean() ? 1 : 1 + random.nextInt(Math.max(bound / 8, 1));
+        for (int i = random.nextInt(Math.min(bound, 8)); i < bound; i += step + random.nextInt(3)) out.add(i);
+        return out.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 从 [0, size) 中随机取出从小到大、互不重叠的若干个左闭右开区间，有的区间会跨过好几个块
+     */
+    private static int[][] randomRanges (Random random, int size) {
+        var froms = new ArrayList<Integer>();
+        var tos = new ArrayList<Integer>();
+        int maxLength = random.nextBoolean() ? 3 : 1200;
+        for (int i = random.nextInt(size); i < size; ) {
+            int to = Math.min(size, i + 1 + random.nextInt(maxLength));
+            froms.add(i);
+            tos.add(to);
+            i = to + random.nextInt(random.nextBoolean() ? 4 : 600);
+        }
+        return new int[][]{
+                froms.stream().mapToInt(Integer::intValue).toArray(),
+                tos.stream().mapToInt(Integer::intValue).toArray()
+        };
+    }
+
+    private static void assertContent (List<String> expected, TextStore store) {
+        assertEquals(expected.size(), store.size());
+        for (int i = 0; i < expected.size(); i++) assertEquals(expected.get(i), store.get(i).getTextStr(), "下标 " + i);
+        int i = 0;
+        for (var it = store.readOnlyIterator(); it.hasNext(); i++) assertEquals(expected.get(i), it.next().toString());
+        assertEquals(expected.size(), i);
+    }
+}
@@ -0,0 +1,126 @@
+package org.flaac3.ColorfulPrinter.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IntBitmap 和 BitSet 对照：元素分布在好几组里（包括负数），每组随机是稀疏的数组、密集的位图或者 addRange 生成的位图
+ * */
+class IntBitmapTest {
+    private static final int OFFSET = 3 << 16; //BitSet 中的下标 = 元素 + OFFSET
+    private static final int DOMAIN = 6 << 16;
+
+    @Test
+    void setOperationsMatchBitSet () {
+        var random = new Random(7);
+        for (int round = 0; round < 300; round++) {
+            var a = new BitSet();
+            var b = new BitSet();
+            var x = randomBitmap(random, a);
+            var y = randomBitmap(random, b);
+
+            var or = (BitSet) a.clone();
+            or.or(b);
+            var and = (BitSet) a.clone();
+            and.and(b);
+            var andNot = (BitSet) a.clone();
+            andNot.andNot(b);
+
+            assertContent(or, x.or(y));
+            assertContent(and, x.and(y));
+            assertContent(andNot, x.andNot(y));
+            assertContent(a, x); //运算不会修改原来的位图
+            assertContent(b, y);
+        }
+    }
+
+    @Test
+    void runsAreMaximal () {
+        var random = new Random(8);
+        for (int round = 0; round < 100; round++) {
+            var expected = new BitSet();
+            var bitmap = randomBitmap(random, expected);
+            var runs = new ArrayList<int[]>();
+            bitmap.forEachRun((start, end) -> runs.add(new int[]{start, end}));
+            var actual = new BitSet();
+            int previousEnd = Integer.MIN_VALUE;
+            for (var run : runs) {
+                assertTrue(run[0] <= run[1]);
+                assertTrue(previousEnd == Integer.MIN_VALUE || run[0] > previousEnd + 1, "相邻的范围应该合并");
+                actual.set(run[0] + OFFSET, run[1] + OFFSET + 1);
+                previousEnd = run[1];
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * 两个小的数组容器求交集时直接归并，不会每组展开成两个 8KB 的位图
+     * */
+    @Test
+    void smallArrayIntersectionDoesNotAllocateBitmaps () {
+        var x = new IntBitmap();
+        var y = new IntBitmap();
+        for (int i = 0; i < 200; i++) {
+            x.add(i * 3);
+            y.add(i * 5);
+        }
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 10_000; i++) assertFalse(x.and(y).isEmpty()); //预热
+        int operations = 10_000;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < operations; i++) assertFalse(x.and(y).isEmpty());
+        long perOperation = (threads.getCurrentThreadAllocatedBytes() - before) / operations;
+        assertTrue(perOperation < 2048, "每次 and 分配了 " + perOperation + " 字节");
+    }
+
+    private static IntBitmap randomBitmap (Random random, BitSet expected) {
+        var bitmap = new IntBitmap();
+        int groups = random.nextInt(4);
+        for (int g = 0; g < groups; g++) {
+            int base = random.nextInt(6) - 3 << 16;
+            switch (random.nextInt(3)) {
+                case 0 -> { //稀疏：数组容器
+                    for (int i = random.nextInt(300); i > 0; i--) add(bitmap, expected, base + random.nextInt(1 << 16));
+                }
+                case 1 -> { //密集：超过 ARRAY_MAX 之后换成位图
+                    for (int i = 4000 + random.nextInt(3000); i > 0; i--) add(bitmap, expected, base + random.nextInt(1 << 14));
+                }
+                default -> { //addRange：可能是元素很少的位图
+                    int from = base + random.nextInt(1 << 16), to = from + random.nextInt(200) - 100;
+                    from = Math.max(from, -OFFSET);
+                    to = Math.min(Math.max(to, -OFFSET), DOMAIN - OFFSET - 1);
+                    bitmap.addRange(from, to);
+                    expected.set(Math.min(from, to) + OFFSET, Math.max(from, to) + OFFSET + 1);
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    private static void add (IntBitmap bitmap, BitSet expected, int num) {
+        assertEquals(!expected.get(num + OFFSET), bitmap.add(num));
+        expected.set(num + OFFSET);
+    }
+
+    private static void assertContent (BitSet expected, IntBitmap actual) {
+        List<Integer> values = new ArrayList<>();
+        actual.forEach(values::add);
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        int k = 0;
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1), k++) {
+            assertEquals(i - OFFSET, (int) values.get(k));
+            assertTrue(actual.contains(i - OFFSET));
+        }
+        assertEquals(k, values.size());
+        assertFalse(actual.contains(expected.nextClearBit(0) - OFFSET));
+    }
+}
@@ -0,0 +1,131 @@
+package org.flaac3.ColorfulPrinter.Utils.Selector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.flaac3.ColorfulPrinter.Utils.Selector.RandomSelectors.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 随机组合 step、filter、limit、skip、reverse、offset，和对展开后的 List 逐步计算的结果对照
+ * */
+class LazySelectorTest {
+    @Test
+    void pipelineMatchesListOracle () {
+        var random = new Random(13);
+        for (int round = 0; round < 2000; round++) {
+            var ranges = distinct(random);
+            var expected = expand(ranges);
+            var lazy = new Selector(ranges).lazy();
+            var description = new StringBuilder();
+            for (int step = random.nextInt(5); step >= 0; step--) {
+                switch (random.nextInt(6)) {
+                    case 0 -> {
+                        int n = 1 + random.nextInt(4);
+                        lazy = lazy.step(n);
+                        var out = new ArrayList<Integer>();
+                        for (int i = 0; i < expected.size(); i += n) out.add(expected.get(i));
+                        expected = out;
+                        description.append(".step(").append(n).append(')');
+                    }
+                    case 1 -> {
+                        int modulus = 2 + random.nextInt(3);
+                        lazy = lazy.filter(num -> Math.floorMod(num, modulus) != 0);
+                        expected = expected.stream().filter(num -> Math.floorMod(num, modulus) != 0).toList();
+                        description.append(".filter(%").append(modulus).append(')');
+                    }
+                    case 2 -> {
+                        int maxSize = random.nextInt(expected.size() + 3);
+                        lazy = lazy.limit(maxSize);
+                        expected = expected.subList(0, Math.min(maxSize, expected.size()));
+                        description.append(".limit(").append(maxSize).append(')');
+                    }
+                    case 3 -> {
+                        int n = random.nextInt(expected.size() + 3);
+                        lazy = lazy.skip(n);
+                        expected = expected.subList(Math.min(n, expected.size()), expected.size());
+                        description.append(".skip(").append(n).append(')');
+                    }
+                    case 4 -> {
+                        lazy = lazy.reverse();
+                        var out = new ArrayList<>(expected);
+                        Collections.reverse(out);
+                        expected = out;
+                        description.append(".reverse()");
+                    }
+                    default -> {
+                        int k = random.nextInt(21) - 10;
+                        lazy = lazy.offset(k);
+                        expected = expected.stream().map(num -> num + k).toList();
+                        description.append(".offset(").append(k).append(')');
+                    }
+                }
+            }
+            assertResult(expected, lazy, description.toString());
+        }
+    }
+
+    /**
+     * limit 之后的 reverse 也要等到遍历时才计算前面的步骤，计算过一次之后重复遍历不再调用 predicate
+     * */
+    @Test
+    void reverseAfterPositionalStageIsLazy () {
+        var calls = new int[1];
+        var lazy = new Selector(new int[][]{{0, 99}}).lazy()
+                .filter(num -> { calls[0]++; return num % 3 == 0; })
+                .limit(5)
+                .reverse()
+                .offset(1);
+        var skipped = lazy.skip(1).reverse();
+        assertEquals(0, calls[0], "构造表达式时不应该调用 predicate");
+        assertResult(List.of(13, 10, 7, 4, 1), lazy, "reverse");
+        int evaluated = calls[0];
+        assertTrue(evaluated > 0);
+        assertResult(List.of(1, 4, 7, 10), skipped, "reverse().skip(1).reverse()");
+        assertResult(List.of(13, 10, 7, 4, 1), lazy, "reverse");
+        assertEquals(evaluated, calls[0], "reverse 之前的结果只计算一次");
+    }
+
+    @Test
+    void invalidArguments () {
+        var selector = new Selector(new int[][]{{0, 9}});
+        assertThrows(IllegalArgumentException.class, () -> selector.step(0));
+        assertThrows(IllegalArgumentException.class, () -> selector.limit(-1));
+        assertThrows(IllegalArgumentException.class, () -> selector.skip(-1));
+        assertThrows(IllegalArgumentException.class, () -> selector.reverse().toSortSelector());
+    }
+
+    private static void assertResult (List<Integer> expected, LazySelector lazy, String description) {
+        var forEach = new ArrayList<Integer>();
+        lazy.forEach(forEach::add);
+        assertEquals(expected, forEach, description);
+        assertEquals(expected, toList(lazy.toSelector().toIntArray()), description);
+        assertEquals(expected, toList(lazy.toSelector().toIntArray()), "重复遍历：" + description);
+
+        var byRange = new ArrayList<Integer>();
+        lazy.forEachRange(new RangeWork() {
+            @Override
+            public void ifRange (int start, int end) {
+                assertNotEquals(start, end);
+                for (int num = start; ; num += start < end ? 1 : -1) {
+                    byRange.add(num);
+                    if (num == end) break;
+                }
+            }
+            @Override
+            public void ifOne (int num) {
+                byRange.add(num);
+            }
+        });
+        assertEquals(expected, byRange, description);
+
+        boolean ascending = true;
+        for (int i = 1; i < expected.size(); i++) ascending &= expected.get(i) > expected.get(i - 1);
+        if (ascending) assertEquals(expected, toList(lazy.toSortSelector().toIntArray()), description);
+        else assertThrows(IllegalArgumentException.class, lazy::toSortSelector, description);
+    }
+}
@@ -0,0 +1,91 @@
+package org.flaac3.ColorfulPrinter.Utils.Selector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 测试用的随机范围：元素都在 [MIN, MAX) 之中，范围短、数量多，这样经常会出现相邻、重叠和跨越多个范围的情况
+ * */
+final class RandomSelectors {
+    static final int MIN = -40, MAX = 160;
+
+    private RandomSelectors () {}
+
+    /**
+     * 互不重叠的范围（默认在 [MIN, MAX) 之中），顺序打乱，方向随机
+     * */
+    static int[][] distinct (Random random) {
+        return distinct(random, MIN, MAX);
+    }
+    static int[][] distinct (Random random, int min, int max) {
+        var out = sorted(random, min, max);
+        for (int[] range : out) {
+            if (range.length == 2 && random.nextBoolean()) {
+                int t = range[0]; range[0] = range[1]; range[1] = t;
+            }
+        }
+        var list = new ArrayList<>(List.of(out));
+        Collections.shuffle(list, random);
+        return list.toArray(new int[0][]);
+    }
+
+    /**
+     * 从小到大、互不重叠的范围（可能首尾相接），至少有一个元素，默认在 [MIN, MAX) 之中
+     * */
+    static int[][] sorted (Random random) {
+        return sorted(random, MIN, MAX);
+    }
+    static int[][] sorted (Random random, int min, int max) {
+        var out = new ArrayList<int[]>();
+        int gap = random.nextInt(4) == 0 ? 30 : 4;
+        for (int i = min + random.nextInt(gap + 1); i < max; ) {
+            int end = Math.min(max - 1, i + random.nextInt(random.nextBoolean() ? 3 : 20));
+            out.add(end == i ? new int[]{i} : new int[]{i, end});
+            i = end + 1 + random.nextInt(gap);
+        }
+        if (out.isEmpty()) out.add(new int[]{min + random.nextInt(max - min)});
+        return out.toArray(new int[0][]);
+    }
+
+    /**
+     * 可以重复、可以重叠、方向和顺序都随机的范围，其中可能有 null 和空数组
+     * */
+    static int[][] overlapping (Random random) {
+        var out = new int[1 + random.nextInt(12)][];
+        for (int k = 0; k < out.length; k++) {
+            int kind = random.nextInt(10);
+            if (kind == 0) continue; //null
+            if (kind == 1) {
+                out[k] = new int[0];
+                continue;
+            }
+            int start = MIN + random.nextInt(MAX - MIN), end = Math.max(MIN, Math.min(MAX - 1, start + random.nextInt(41) - 20));
+            out[k] = random.nextBoolean() ? new int[]{start} : new int[]{start, end};
+        }
+        return out;
+    }
+
+    /**
+     * 按顺序展开范围，跳过 null 和空数组
+     * */
+    static List<Integer> expand (int[][] ranges) {
+        var out = new ArrayList<Integer>();
+        for (int[] range : ranges) {
+            if (range == null || range.length == 0) continue;
+            int end = range.length == 1 ? range[0] : range[1], step = range[0] <= end ? 1 : -1;
+            for (int num = range[0]; ; num += step) {
+                out.add(num);
+                if (num == end) break;
+            }
+        }
+        return out;
+    }
+
+    static List<Integer> toList (int[] values) {
+        var out = new ArrayList<Integer>(values.length);
+        for (int value : values) out.add(value);
+        return out;
+    }
+}
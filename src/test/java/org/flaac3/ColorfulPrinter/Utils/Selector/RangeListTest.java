@@ -0,0 +1,71 @@
+package org.flaac3.ColorfulPrinter.Utils.Selector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RangeList 的二分查找和倍增查找，和从头线性扫描前缀数量的结果对照
+ * */
+class RangeListTest {
+    @Test
+    void searchMatchesLinearScan () {
+        var random = new Random(12);
+        for (int round = 0; round < 500; round++) {
+            var ranges = new Selector(RandomSelectors.distinct(random)).getRanges();
+            int total = ranges.total();
+            int prefix = 0;
+            for (int i = 0; i < ranges.size(); i++) {
+                assertEquals(prefix, ranges.prefix(i));
+                prefix += ranges.size(i);
+            }
+            assertEquals(prefix, total);
+            assertEquals(total, ranges.prefix(ranges.size()));
+
+            for (int index = 0; index < total; index++) {
+                int expected = linearSearch(ranges, index);
+                assertEquals(expected, ranges.search(index), "index " + index);
+                //倍增查找：从不小于答案的任意位置开始都能找到
+                for (int fromIndex = expected; fromIndex < ranges.size(); fromIndex += 1 + random.nextInt(4)) {
+                    assertEquals(expected, ranges.search(index, fromIndex), "index " + index + " from " + fromIndex);
+                }
+                //从答案之前的位置开始查找时，index 不在查找的范围中
+                if (expected > 0) {
+                    int fromIndex = random.nextInt(expected);
+                    int finalIndex = index;
+                    assertThrows(IndexOutOfBoundsException.class, () -> ranges.search(finalIndex, fromIndex));
+                }
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> ranges.search(-1));
+            assertThrows(IndexOutOfBoundsException.class, () -> ranges.search(total));
+            assertThrows(IndexOutOfBoundsException.class, () -> ranges.search(0, ranges.size()));
+        }
+    }
+
+    /**
+     * 最长的情况：每个范围只有一个元素，倍增的步长会跨过很多个范围
+     * */
+    @Test
+    void searchOverManySingletons () {
+        int count = 5000;
+        var singles = new int[count][];
+        for (int i = 0; i < count; i++) singles[i] = new int[]{count - i};
+        var ranges = new Selector(singles).getRanges();
+        for (int index = 0; index < count; index += 7) {
+            assertEquals(index, ranges.search(index));
+            assertEquals(index, ranges.search(index, count - 1));
+            assertEquals(index, ranges.search(index, Math.min(count - 1, index + 100)));
+        }
+    }
+
+    private static int linearSearch (RangeList ranges, int index) {
+        int prefix = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            prefix += ranges.size(i);
+            if (index < prefix) return i;
+        }
+        throw new AssertionError("index " + index + " 超出范围");
+    }
+}
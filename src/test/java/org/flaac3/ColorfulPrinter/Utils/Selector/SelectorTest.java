@@ -0,0 +1,202 @@
+package org.flaac3.ColorfulPrinter.Utils.Selector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.flaac3.ColorfulPrinter.Utils.Selector.RandomSelectors.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Selector 的下标查找、子集选择和集合运算，和按顺序展开成 List 之后逐个计算的结果对照
+ * */
+class SelectorTest {
+    private static final int ROUNDS = 400;
+
+    @Test
+    void elementsMatchExpansion () {
+        var random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            var ranges = distinct(random);
+            var expected = expand(ranges);
+            var selector = new Selector(ranges);
+            assertElements(expected, selector);
+            assertEquals(expected.stream().mapToInt(Integer::intValue).max().getAsInt(), selector.getMax());
+            assertEquals(expected.stream().mapToInt(Integer::intValue).min().getAsInt(), selector.getMin());
+            assertEquals(expected.get(0), selector.getFirst());
+            assertEquals(expected.get(expected.size() - 1), selector.getLast());
+
+            var backward = new ArrayList<Integer>();
+            selector.forEach(false, backward::add);
+            assertEquals(reversed(expected), backward);
+            assertThrows(IndexOutOfBoundsException.class, () -> selector.get(expected.size()));
+            assertThrows(IndexOutOfBoundsException.class, () -> selector.get(-1));
+        }
+    }
+
+    @Test
+    void getSelectorPicksByIndex () {
+        var random = new Random(2);
+        for (int round = 0; round < ROUNDS; round++) {
+            var ranges = distinct(random);
+            var elements = expand(ranges);
+            var selector = new Selector(ranges);
+            var indexes = distinct(random, 0, elements.size());
+            var expected = new ArrayList<Integer>();
+            for (int index : expand(indexes)) expected.add(elements.get(index));
+            assertElements(expected, selector.get(new Selector(indexes)));
+
+            var sortedIndexes = sorted(random, 0, elements.size());
+            var expectedSorted = new ArrayList<Integer>();
+            for (int index : expand(sortedIndexes)) expectedSorted.add(elements.get(index));
+            assertElements(expectedSorted, selector.get(new SortSelector(sortedIndexes)));
+
+            //超出范围的下标
+            var outside = new Selector(new int[][]{{0, elements.size()}});
+            assertThrows(IndexOutOfBoundsException.class, () -> selector.get(outside));
+        }
+    }
+
+    @Test
+    void sortSelectorGetKeepsOrder () {
+        var random = new Random(3);
+        for (int round = 0; round < ROUNDS; round++) {
+            var ranges = sorted(random);
+            var elements = expand(ranges);
+            var sortSelector = new SortSelector(ranges);
+            assertElements(elements, sortSelector);
+
+            var indexes = distinct(random, 0, elements.size());
+            var expected = new ArrayList<Integer>();
+            for (int index : expand(indexes)) expected.add(elements.get(index));
+            assertElements(expected, sortSelector.get(new Selector(indexes)));
+
+            var sortedIndexes = sorted(random, 0, elements.size());
+            var expectedSorted = new ArrayList<Integer>();
+            for (int index : expand(sortedIndexes)) expectedSorted.add(elements.get(index));
+            SortSelector picked = sortSelector.get(new SortSelector(sortedIndexes));
+            assertElements(expectedSorted, picked);
+        }
+    }
+
+    @Test
+    void plusAndMinusKeepFirstOccurrenceOrder () {
+        var random = new Random(4);
+        for (int round = 0; round < ROUNDS; round++) {
+            var a = distinct(random);
+            var b = distinct(random);
+            var x = new Selector(a);
+            var y = new Selector(b);
+
+            var union = new LinkedHashSet<>(expand(a));
+            union.addAll(expand(b));
+            assertElements(new ArrayList<>(union), x.plus(y));
+
+            var difference = new ArrayList<>(expand(a));
+            difference.removeAll(expand(b));
+            if (difference.isEmpty()) assertEquals(0, x.minus(y).size());
+            else assertElements(difference, x.minus(y));
+        }
+    }
+
+    @Test
+    void ofRemovesDuplicates () {
+        var random = new Random(5);
+        for (int round = 0; round < ROUNDS; round++) {
+            var ranges = overlapping(random);
+            var expected = new ArrayList<>(new LinkedHashSet<>(expand(ranges)));
+            var selector = Selector.of(ranges);
+            if (expected.isEmpty()) assertEquals(0, selector.size());
+            else assertElements(expected, selector);
+
+            var sorted = expected.stream().sorted().toList();
+            var sortSelector = SortSelector.of(ranges);
+            if (sorted.isEmpty()) assertEquals(0, sortSelector.size());
+            else {
+                assertSorted(sorted, sortSelector);
+                assertSorted(sorted, selector.sort());
+                assertSorted(sorted, SortSelector.of(selector.toBitmap()));
+            }
+        }
+    }
+
+    @Test
+    void sortedSetOperationsMatchOracle () {
+        var random = new Random(6);
+        for (int round = 0; round < ROUNDS; round++) {
+            var a = sorted(random);
+            var b = sorted(random);
+            var x = new SortSelector(a);
+            var y = new SortSelector(b);
+            var listA = expand(a);
+            var listB = expand(b);
+
+            var unionSet = new TreeSet<>(listA);
+            unionSet.addAll(listB);
+            var union = new ArrayList<>(unionSet);
+            var difference = new ArrayList<>(listA);
+            difference.removeAll(listB);
+            var intersection = new ArrayList<>(listA);
+            intersection.retainAll(listB);
+
+            assertSorted(union, x.plus(y));
+            assertSorted(difference, x.minus(y));
+            assertSorted(intersection, x.intersect(y));
+            //和无序的 Selector 相减
+            var shuffled = distinct(random);
+            var differenceUnsorted = new ArrayList<>(listA);
+            differenceUnsorted.removeAll(expand(shuffled));
+            assertSorted(differenceUnsorted, x.minus(new Selector(shuffled)));
+        }
+    }
+
+    /**
+     * 结果元素相同，并且相邻的范围已经合并（同一个方向上首尾相接的范围不会分成两段）
+     * */
+    private static void assertSorted (List<Integer> expected, SortSelector actual) {
+        if (expected.isEmpty()) {
+            assertEquals(0, actual.size());
+            assertEquals(0, actual.rangesSize());
+            return;
+        }
+        assertElements(expected, actual);
+        var ranges = actual.getRanges();
+        for (int i = 1; i < ranges.size(); i++) assertTrue(ranges.left(i) > ranges.right(i - 1) + 1, "范围没有合并：" + actual);
+    }
+
+    static void assertElements (List<Integer> expected, Selector actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, toList(actual.toIntArray()));
+        for (int i = 0; i < expected.size(); i++) assertEquals(expected.get(i), actual.get(i), "下标 " + i);
+        var iterated = new ArrayList<Integer>();
+        for (var it = actual.iterator(); it.hasNext(); ) iterated.add(it.nextInt());
+        assertEquals(expected, iterated);
+        assertEquals(expected, actual.stream().boxed().toList());
+        var byRange = new ArrayList<Integer>();
+        actual.forEachRange(new RangeWork() {
+            @Override
+            public void ifRange (int start, int end) {
+                for (int num = start; ; num += start < end ? 1 : -1) {
+                    byRange.add(num);
+                    if (num == end) break;
+                }
+            }
+            @Override
+            public void ifOne (int num) {
+                byRange.add(num);
+            }
+        });
+        assertEquals(expected, byRange);
+    }
+
+    private static List<Integer> reversed (List<Integer> list) {
+        var out = new ArrayList<>(list);
+        Collections.reverse(out);
+        return out;
+    }
+}